@@ -0,0 +1,127 @@
+package com.example.strava.bulkimport;
+
+import com.example.strava.model.StravaActivity;
+import com.example.strava.service.ActivityCoverage;
+import com.example.strava.store.ActivitySnapshot;
+import com.example.strava.store.ActivityStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Loads a Strava bulk-export archive into an athlete's stored activity history.
+ * <p>
+ * Only {@code activities.csv} is read, streamed straight out of the archive; the activity files next to it
+ * are never extracted. Rows are parsed in batches and each batch is converted in parallel. The activities
+ * then replace everything held for the dates the export covers, which is every day before the export was
+ * made, and the API only has to fill in the days since. Those dates are sealed: they are never considered
+ * stale or re-fetched, and the history holding them is kept until it is removed.
+ */
+public class BulkExportImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkExportImporter.class);
+
+    static final String ACTIVITIES_ENTRY = "activities.csv";
+    private static final int BATCH_SIZE = 2048;
+
+    /**
+     * What was imported: the activities, the last day the export covers and the rows that could not be used.
+     */
+    public record ImportResult(List<StravaActivity> activities, LocalDate coveredThrough, int skippedRows) {
+    }
+
+    private final ActivityStore activityStore;
+
+    public BulkExportImporter(ActivityStore activityStore) {
+        this.activityStore = activityStore;
+    }
+
+    public ImportResult importArchive(Path archive, String athleteId, ZoneId athleteZone) throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            ZipEntry entry = findActivities(zip);
+            // Activities from the day the export was made may post-date it, so that day is left to the API
+            Instant exportedAt = entry.getLastModifiedTime() != null
+                    ? entry.getLastModifiedTime().toInstant()
+                    : Instant.now();
+            LocalDate coveredThrough = LocalDate.ofInstant(exportedAt, athleteZone).minusDays(1);
+
+            List<StravaActivity> activities = new ArrayList<>();
+            int skipped;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8))) {
+                skipped = readActivities(new CsvRecordReader(reader), athleteZone, activities);
+            }
+            activities.removeIf(activity -> activity.getStartDateLocal().toLocalDate().isAfter(coveredThrough));
+
+            String key = ActivityCoverage.historyKey(athleteId);
+            ActivitySnapshot history = activityStore.get(key).orElse(null);
+            ActivitySnapshot merged = ActivityCoverage.merge(history, LocalDate.MIN, coveredThrough, activities,
+                    Instant.now(), true);
+            activityStore.put(key, merged, ActivityStore.RETAIN_INDEFINITELY);
+            logger.info("Imported {} activities through {} for athlete {} ({} rows skipped)", activities.size(),
+                    coveredThrough, athleteId, skipped);
+            return new ImportResult(activities, coveredThrough, skipped);
+        }
+    }
+
+    private static ZipEntry findActivities(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(ACTIVITIES_ENTRY);
+        if (entry != null) {
+            return entry;
+        }
+        // Some archives wrap everything in a top-level folder
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry candidate = entries.nextElement();
+            if (candidate.getName().endsWith("/" + ACTIVITIES_ENTRY)) {
+                return candidate;
+            }
+        }
+        throw new IOException("No " + ACTIVITIES_ENTRY + " in " + zip.getName());
+    }
+
+    /**
+     * Reads every row into {@code activities}, returning how many rows were skipped.
+     */
+    static int readActivities(CsvRecordReader reader, ZoneId athleteZone, List<StravaActivity> activities)
+            throws IOException {
+        String[] header = reader.next();
+        if (header == null) {
+            return 0;
+        }
+        ExportActivityConverter converter = new ExportActivityConverter(header, athleteZone);
+        int skipped = 0;
+        List<String[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (String[] row = reader.next(); row != null; row = reader.next()) {
+            batch.add(row);
+            if (batch.size() == BATCH_SIZE) {
+                skipped += convert(batch, converter, activities);
+                batch.clear();
+            }
+        }
+        return skipped + convert(batch, converter, activities);
+    }
+
+    private static int convert(List<String[]> batch, ExportActivityConverter converter, List<StravaActivity> activities) {
+        List<StravaActivity> converted = batch.parallelStream()
+                .map(converter::toActivity)
+                .filter(Objects::nonNull)
+                .toList();
+        activities.addAll(converted);
+        return batch.size() - converted.size();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.strava.bulkimport;
+
+import com.example.strava.dto.SummaryStatsDto;
+import com.example.strava.model.ActivityCountDto;
+import com.example.strava.service.StravaStatsService;
+import com.example.strava.store.ActivityStore;
+import com.example.strava.store.FileActivityStore;
+import com.example.strava.store.RedisActivityStore;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line entry point:
+ * <pre>
+ * bulk-import &lt;export.zip&gt; --athlete &lt;id&gt; [--zone Europe/Berlin]
+ *             [--store file --directory &lt;dir&gt; | --store redis --redis-url redis://host:6379 --key-prefix strava:activities:]
+ * </pre>
+ * Store options mirror the application's {@code strava.store.*} properties and default to the same values.
+ */
+public class BulkImportApplication {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            usage();
+            return;
+        }
+        Map<String, String> options = options(args);
+        String athleteId = options.get("athlete");
+        if (athleteId == null) {
+            usage();
+            return;
+        }
+        ZoneId zone = ZoneId.of(options.getOrDefault("zone", ZoneId.systemDefault().getId()));
+
+        LettuceConnectionFactory redis = null;
+        ActivityStore store;
+        if ("redis".equals(options.getOrDefault("store", "file"))) {
+            URI url = URI.create(options.getOrDefault("redis-url", "redis://localhost:6379"));
+            redis = new LettuceConnectionFactory(new RedisStandaloneConfiguration(url.getHost(),
+                    url.getPort() > 0 ? url.getPort() : 6379));
+            redis.afterPropertiesSet();
+            redis.start();
+            store = new RedisActivityStore(redis, options.getOrDefault("key-prefix", "strava:activities:"));
+        } else {
+            store = new FileActivityStore(Path.of(options.getOrDefault("directory",
+                    Path.of(System.getProperty("java.io.tmpdir"), "strava-activity-store").toString())));
+        }
+
+        try {
+            BulkExportImporter.ImportResult result = new BulkExportImporter(store)
+                    .importArchive(Path.of(args[0]), athleteId, zone);
+            report(result);
+        } finally {
+            if (redis != null) {
+                redis.destroy();
+            }
+        }
+    }
+
+    private static void report(BulkExportImporter.ImportResult result) {
+        // Same engine the dashboard uses, with its default parallelism settings
+        StravaStatsService stats = new StravaStatsService(StravaStatsService.DEFAULT_PARALLEL_THRESHOLD,
+                StravaStatsService.DEFAULT_PARALLEL_CHUNK_SIZE);
+        SummaryStatsDto summary = stats.getSummaryStats(result.activities());
+        System.out.printf("Imported %d activities through %s (%d rows skipped), %d hours moving%n",
+                summary.getTotalActivities(), result.coveredThrough(), result.skippedRows(),
+                summary.getTotalMovingTimeSeconds() / 3600);
+        for (ActivityCountDto count : stats.getActivityCountDistribution(result.activities())) {
+            System.out.printf("  %-20s %d%n", count.getActivityType(), count.getCount());
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but found " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static void usage() {
+        System.err.println("Usage: bulk-import <export.zip> --athlete <id> [--zone <zone-id>]"
+                + " [--store file --directory <dir> | --store redis --redis-url <url> --key-prefix <prefix>]");
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.strava.bulkimport;
+
+import com.example.strava.model.StravaActivity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns rows of an export's {@code activities.csv} into {@link StravaActivity} objects shaped like the API's.
+ * <p>
+ * The export repeats some headers: the first {@code Distance} is in kilometres and the later one in metres,
+ * so the last column with a given name wins. {@code Activity Date} is UTC; the local start time is derived
+ * from the athlete's zone and, like the API's {@code start_date_local}, labelled UTC. Types are exported
+ * as display names ("Weight Training") and mapped back to API names ("WeightTraining").
+ */
+final class ExportActivityConverter {
+
+    private static final DateTimeFormatter ACTIVITY_DATE =
+            DateTimeFormatter.ofPattern("MMM d, yyyy, h:mm:ss a", Locale.ENGLISH);
+
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final int kilometresColumn;
+    private final ZoneId athleteZone;
+
+    ExportActivityConverter(String[] header, ZoneId athleteZone) {
+        int firstDistance = -1;
+        for (int i = 0; i < header.length; i++) {
+            String name = header[i].strip().replace("\uFEFF", "");
+            columns.put(name, i);
+            if (name.equals("Distance") && firstDistance < 0) {
+                firstDistance = i;
+            }
+        }
+        if (!columns.containsKey("Activity ID") || !columns.containsKey("Activity Date")) {
+            throw new IllegalArgumentException("Not a Strava activities.csv: missing Activity ID or Activity Date");
+        }
+        this.kilometresColumn = firstDistance != columns.getOrDefault("Distance", -1) ? firstDistance : -1;
+        this.athleteZone = athleteZone;
+    }
+
+    /**
+     * The activity for one row, or null when the row has no usable id or start date.
+     */
+    StravaActivity toActivity(String[] row) {
+        Long id = parseLong(value(row, "Activity ID"));
+        ZonedDateTime startDate = parseDate(value(row, "Activity Date"));
+        if (id == null || startDate == null) {
+            return null;
+        }
+        StravaActivity activity = new StravaActivity();
+        activity.setId(id);
+        activity.setName(value(row, "Activity Name"));
+        String type = apiType(value(row, "Activity Type"));
+        activity.setType(type);
+        activity.setSportType(type);
+        activity.setStartDate(startDate);
+        LocalDateTime local = startDate.withZoneSameInstant(athleteZone).toLocalDateTime();
+        activity.setStartDateLocal(local.atZone(ZoneOffset.UTC));
+        activity.setDistance(distance(row));
+        activity.setMovingTime(toInteger(parseDouble(value(row, "Moving Time"))));
+        activity.setElapsedTime(toInteger(parseDouble(value(row, "Elapsed Time"))));
+        activity.setTotalElevationGain(parseDouble(value(row, "Elevation Gain")));
+        activity.setAverageSpeed(parseDouble(value(row, "Average Speed")));
+        activity.setMaxSpeed(parseDouble(value(row, "Max Speed")));
+        return activity;
+    }
+
+    private Double distance(String[] row) {
+        Double metres = parseDouble(value(row, "Distance"));
+        if (metres == null && kilometresColumn >= 0 && kilometresColumn < row.length) {
+            Double kilometres = parseDouble(row[kilometresColumn]);
+            return kilometres != null ? kilometres * 1000 : null;
+        }
+        return metres;
+    }
+
+    private String value(String[] row, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.length) {
+            return null;
+        }
+        String value = row[index].strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    static String apiType(String displayName) {
+        return displayName == null ? null : displayName.replace(" ", "").replace("-", "");
+    }
+
+    private static ZonedDateTime parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            // Newer exports separate the time and AM/PM with a narrow no-break space
+            String normalized = value.replace('\u202F', ' ').replace('\u00A0', ' ');
+            return LocalDateTime.parse(normalized, ACTIVITY_DATE).atZone(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Long parseLong(String value) {
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String value) {
+        try {
+            return value != null ? Double.valueOf(value.replace(",", "")) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer toInteger(Double value) {
+        return value != null ? (int) Math.round(value) : null;
+    }
+}
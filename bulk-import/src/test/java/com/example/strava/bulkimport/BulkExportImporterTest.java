@@ -0,0 +1,108 @@
+package com.example.strava.bulkimport;
+
+import com.example.strava.model.StravaActivity;
+import com.example.strava.store.ActivitySnapshot;
+import com.example.strava.store.CoveredRange;
+import com.example.strava.store.InMemoryActivityStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class BulkExportImporterTest {
+
+    // Trimmed header of a real export: Elapsed Time and Distance appear twice, the first Distance in km
+    private static final String CSV = """
+            Activity ID,Activity Date,Activity Name,Activity Type,Activity Description,Elapsed Time,Distance,\
+            Elapsed Time,Moving Time,Distance,Max Speed,Average Speed,Elevation Gain
+            101,"Jan 5, 2024, 7:00:00 AM",Morning Run,Run,"Easy, with strides
+            over two lines",1900,5.01,1900.0,1800.0,5010.5,4.1,2.78,35.0
+            102,"Jan 6, 2024, 11:30:00 PM",Late lift,Weight Training,,3600,0.00,3600.0,3400.0,,,,
+            103,not a date,Broken row,Run,,60,0.1,60.0,60.0,100.0,,,
+            104,"Mar 1, 2024, 6:00:00 AM",Export day ride,Ride,,3600,30.0,3600.0,3500.0,30000.0,12.0,8.6,200.0
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void importsActivitiesAndCoversEveryDayBeforeTheExport() throws Exception {
+        Path archive = archive(CSV, Instant.parse("2024-03-01T12:00:00Z"));
+        InMemoryActivityStore store = new InMemoryActivityStore(10);
+
+        BulkExportImporter.ImportResult result = new BulkExportImporter(store)
+                .importArchive(archive, "42", ZoneId.of("America/New_York"));
+
+        assertThat(result.skippedRows()).isEqualTo(1);
+        assertThat(result.coveredThrough()).isEqualTo(LocalDate.of(2024, 2, 29));
+        assertThat(result.activities()).extracting(StravaActivity::getId).containsExactlyInAnyOrder(101L, 102L);
+
+        StravaActivity run = byId(result.activities(), 101L);
+        assertThat(run.getDistance()).isEqualTo(5010.5);
+        assertThat(run.getMovingTime()).isEqualTo(1800);
+        assertThat(run.getStartDateLocal().toLocalDateTime()).isEqualTo("2024-01-05T02:00:00");
+
+        StravaActivity lift = byId(result.activities(), 102L);
+        assertThat(lift.getType()).isEqualTo("WeightTraining");
+        assertThat(lift.getDistance()).isEqualTo(0.0); // metres column empty, kilometres column used
+        assertThat(lift.getStartDateLocal().toLocalDate()).isEqualTo(LocalDate.of(2024, 1, 6));
+
+        ActivitySnapshot history = store.get("42").orElseThrow();
+        assertThat(history.getActivities()).hasSize(2);
+        assertThat(history.getCoverage()).extracting(CoveredRange::start, CoveredRange::end, CoveredRange::sealed)
+                .containsExactly(tuple(LocalDate.MIN, LocalDate.of(2024, 2, 29), true));
+    }
+
+    @Test
+    void keepsFetchedDaysAfterTheExport() throws Exception {
+        InMemoryActivityStore store = new InMemoryActivityStore(10);
+        StravaActivity recent = new StravaActivity();
+        recent.setId(200L);
+        recent.setStartDateLocal(ZonedDateTime.parse("2024-03-02T08:00:00Z"));
+        store.put("42", new ActivitySnapshot(List.of(recent), Instant.now(),
+                List.of(new CoveredRange(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 5), Instant.now()))),
+                Duration.ofHours(1));
+
+        new BulkExportImporter(store)
+                .importArchive(archive(CSV, Instant.parse("2024-03-01T12:00:00Z")), "42", ZoneId.of("UTC"));
+
+        ActivitySnapshot history = store.get("42").orElseThrow();
+        assertThat(history.getActivities()).extracting(StravaActivity::getId).containsExactly(200L, 102L, 101L);
+        assertThat(history.getCoverage()).extracting(CoveredRange::end, CoveredRange::sealed)
+                .containsExactly(tuple(LocalDate.of(2024, 2, 29), true), tuple(LocalDate.of(2024, 3, 5), false));
+    }
+
+    private Path archive(String csv, Instant exportedAt) throws Exception {
+        Path archive = tempDir.resolve("export.zip");
+        try (OutputStream file = Files.newOutputStream(archive); ZipOutputStream zip = new ZipOutputStream(file)) {
+            ZipEntry entry = new ZipEntry("activities.csv");
+            entry.setLastModifiedTime(FileTime.from(exportedAt));
+            zip.putNextEntry(entry);
+            zip.write(csv.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("activities/101.fit.gz"));
+            zip.write(new byte[]{31, -117, 8, 0});
+            zip.closeEntry();
+        }
+        return archive;
+    }
+
+    private static StravaActivity byId(List<StravaActivity> activities, long id) {
+        return activities.stream().filter(a -> a.getId() == id).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.strava.config;
+
+import com.example.strava.store.ActivityStore;
+import com.example.strava.store.FileActivityStore;
+import com.example.strava.store.InMemoryActivityStore;
+import com.example.strava.store.RedisActivityStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.nio.file.Path;
+
+/**
+ * Selects the {@link ActivityStore} backend with {@code strava.store.type}: {@code memory} (default, per node),
+ * {@code file} (embedded on-disk) or {@code redis} (shared across nodes, uses {@code spring.data.redis.*}).
+ */
+@Configuration
+public class ActivityStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "strava.store.type", havingValue = "memory", matchIfMissing = true)
+    public ActivityStore inMemoryActivityStore(@Value("${strava.store.memory.max-entries:1000}") int maxEntries) {
+        return new InMemoryActivityStore(maxEntries);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "strava.store.type", havingValue = "file")
+    public ActivityStore fileActivityStore(@Value("${strava.store.file.directory}") Path directory) {
+        return new FileActivityStore(directory);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "strava.store.type", havingValue = "redis")
+    public ActivityStore redisActivityStore(
+            RedisConnectionFactory redisConnectionFactory,
+            @Value("${strava.store.redis.key-prefix:strava:activities:}") String keyPrefix) {
+        return new RedisActivityStore(redisConnectionFactory, keyPrefix);
+    }
+}
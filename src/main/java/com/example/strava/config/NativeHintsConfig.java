@@ -0,0 +1,86 @@
+package com.example.strava.config;
+
+import com.example.strava.dto.ErrorResponse;
+import com.example.strava.dto.SummaryStatsDto;
+import com.example.strava.model.*;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.BindingReflectionHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Reachability hints for the native image ({@code ./gradlew nativeCompile -Pnative}).
+ * <p>
+ * Spring AOT already covers beans, configuration properties and controller return types. This adds what it
+ * cannot see: DTOs that Jackson handles outside a controller (upstream responses, embedded dashboard data,
+ * session cookies), Java-serialized OAuth types, Resilience4j's property binding and the Thymeleaf templates.
+ * Ignored on the JVM.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.StravaRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class StravaRuntimeHints implements RuntimeHintsRegistrar {
+
+        private static final List<Class<?>> JSON_TYPES = List.of(
+                StravaActivity.class, StravaStreamSet.class,
+                ActivityCountDto.class, BestEffortDto.class, CompactHeatmapDto.class, HeatmapDataDto.class, LeaderboardEntryDto.class,
+                PercentileDto.class, PeriodStatsDto.class, PunchCardDto.class, QueryRowDto.class, RecordingStatusDto.class, RunDistributionDto.class, RunStatsDto.class,
+                TeamStatsDto.class, TimeDistributionDto.class, TrendDataDto.class, WorkoutHeatmapDto.class,
+                ErrorResponse.class, SummaryStatsDto.class);
+
+        // Private records, registered by name
+        private static final List<String> JSON_TYPE_NAMES = List.of(
+                "com.example.strava.security.SignedCookieSecurityContextRepository$SessionPayload");
+
+        private static final List<String> SERIALIZED_TYPE_NAMES = List.of(
+                "com.example.strava.security.RedisOAuth2AuthorizedClientService$StoredClient",
+                "org.springframework.security.oauth2.core.AbstractOAuth2Token",
+                "org.springframework.security.oauth2.core.OAuth2AccessToken",
+                "org.springframework.security.oauth2.core.OAuth2AccessToken$TokenType",
+                "org.springframework.security.oauth2.core.OAuth2RefreshToken",
+                "org.springframework.security.oauth2.core.AuthorizationGrantType",
+                "org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest",
+                "org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationResponseType",
+                "java.time.Instant",
+                "java.time.Ser",
+                "java.util.HashMap",
+                "java.util.LinkedHashMap",
+                "java.util.HashSet",
+                "java.util.LinkedHashSet",
+                "java.util.Collections$UnmodifiableMap",
+                "java.util.Collections$UnmodifiableSet",
+                "java.util.Collections$UnmodifiableCollection");
+
+        private static final List<String> BOUND_TYPE_NAMES = List.of(
+                "io.github.resilience4j.springboot3.retry.autoconfigure.RetryProperties",
+                "io.github.resilience4j.common.retry.configuration.CommonRetryConfigurationProperties$InstanceProperties",
+                "io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerProperties",
+                "io.github.resilience4j.common.circuitbreaker.configuration.CommonCircuitBreakerConfigurationProperties$InstanceProperties",
+                // Named in resilience4j.retry.instances.stravaApi.retry-exceptions
+                "org.springframework.web.reactive.function.client.WebClientException");
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+            JSON_TYPES.forEach(type -> bindings.registerReflectionHints(hints.reflection(), type));
+            JSON_TYPE_NAMES.stream()
+                    .filter(name -> ClassUtils.isPresent(name, classLoader))
+                    .forEach(name -> bindings.registerReflectionHints(hints.reflection(),
+                            ClassUtils.resolveClassName(name, classLoader)));
+
+            SERIALIZED_TYPE_NAMES.forEach(name -> hints.serialization().registerType(TypeReference.of(name)));
+
+            BOUND_TYPE_NAMES.forEach(name -> hints.reflection().registerType(TypeReference.of(name),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS));
+
+            hints.resources().registerPattern("templates/*.html");
+        }
+    }
+}
@@ -2,12 +2,17 @@ package com.example.strava.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
 import org.springframework.http.converter.FormHttpMessageConverter;
 import org.springframework.security.oauth2.client.endpoint.DefaultAuthorizationCodeTokenResponseClient;
 import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
 import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
 import org.springframework.security.oauth2.client.http.OAuth2ErrorResponseErrorHandler;
+import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
 import org.springframework.security.oauth2.core.http.converter.OAuth2AccessTokenResponseHttpMessageConverter;
+import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Arrays;
@@ -15,6 +20,12 @@ import java.util.Arrays;
 @Configuration
 public class OAuth2Config {
 
+    private final ReactorClientHttpRequestFactory stravaRequestFactory;
+
+    public OAuth2Config(ReactorClientHttpRequestFactory stravaRequestFactory) {
+        this.stravaRequestFactory = stravaRequestFactory;
+    }
+
     @Bean
     public OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> accessTokenResponseClient() {
         DefaultAuthorizationCodeTokenResponseClient client = new DefaultAuthorizationCodeTokenResponseClient();
@@ -26,7 +37,22 @@ public class OAuth2Config {
         // Use default error handler to avoid OAuth2 error format parsing issues
         restTemplate.setErrorHandler(new org.springframework.web.client.DefaultResponseErrorHandler());
 
+        // Token exchange shares the pooled Strava connections with activity fetches
+        restTemplate.setRequestFactory(stravaRequestFactory);
+
         client.setRestOperations(restTemplate);
         return client;
     }
+
+    @Bean
+    public OAuth2UserService<OAuth2UserRequest, OAuth2User> oauth2UserService() {
+        DefaultOAuth2UserService userService = new DefaultOAuth2UserService();
+
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setErrorHandler(new OAuth2ErrorResponseErrorHandler());
+        restTemplate.setRequestFactory(stravaRequestFactory);
+
+        userService.setRestOperations(restTemplate);
+        return userService;
+    }
 }
@@ -1,48 +1,101 @@
 package com.example.strava.config;
 
+import com.example.strava.security.SignedCookieAuthorizationRequestRepository;
+import com.example.strava.security.SignedCookieSecurityContextRepository;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
 import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
+import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 
 import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     private final OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> accessTokenResponseClient;
+    private final OAuth2UserService<OAuth2UserRequest, OAuth2User> oauth2UserService;
+    private final SignedCookieSecurityContextRepository cookieSecurityContextRepository;
+    private final SignedCookieAuthorizationRequestRepository cookieAuthorizationRequestRepository;
+    private final Set<String> adminAthleteIds;
 
-    public SecurityConfig(OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> accessTokenResponseClient) {
+    public SecurityConfig(OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> accessTokenResponseClient,
+                          OAuth2UserService<OAuth2UserRequest, OAuth2User> oauth2UserService,
+                          ObjectProvider<SignedCookieSecurityContextRepository> cookieSecurityContextRepository,
+                          ObjectProvider<SignedCookieAuthorizationRequestRepository> cookieAuthorizationRequestRepository,
+                          @Value("${strava.admin.athlete-ids:}") Set<String> adminAthleteIds) {
         this.accessTokenResponseClient = accessTokenResponseClient;
+        this.oauth2UserService = oauth2UserService;
+        // Present only with strava.session.mode=stateless
+        this.cookieSecurityContextRepository = cookieSecurityContextRepository.getIfAvailable();
+        this.cookieAuthorizationRequestRepository = cookieAuthorizationRequestRepository.getIfAvailable();
+        this.adminAthleteIds = adminAthleteIds;
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        boolean stateless = cookieSecurityContextRepository != null;
+        if (stateless) {
+            // No servlet session: login state, the OAuth2 handshake and CSRF tokens all travel in cookies
+            http
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .securityContext(context -> context.securityContextRepository(cookieSecurityContextRepository))
+                .csrf(csrf -> csrf.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse()))
+                .logout(logout -> logout.deleteCookies(SignedCookieSecurityContextRepository.COOKIE_NAME))
+                .oauth2Login(oauth2 -> oauth2
+                    .authorizationEndpoint(authorization -> authorization
+                        .authorizationRequestRepository(cookieAuthorizationRequestRepository)
+                    )
+                );
+        }
+
         http
             .authorizeHttpRequests(authorize -> authorize
-                .requestMatchers("/", "/error", "/webjars/**").permitAll()
+                .requestMatchers("/", "/error", "/webjars/**", "/actuator/health").permitAll()
+                // Diagnostics (flight recordings) only for the configured athletes
+                .requestMatchers("/api/admin/**").access((authentication, context) ->
+                    new AuthorizationDecision(authentication.get().isAuthenticated()
+                        && adminAthleteIds.contains(authentication.get().getName())))
                 .anyRequest().authenticated()
             )
             .oauth2Login(oauth2 -> oauth2
                 .tokenEndpoint(token -> token
                     .accessTokenResponseClient(accessTokenResponseClient)
                 )
+                .userInfoEndpoint(userInfo -> userInfo
+                    .userService(oauth2UserService)
+                )
                 .defaultSuccessUrl("/dashboard", true)
                 .failureHandler(new AuthenticationFailureHandler() {
                     @Override
                     public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response, 
                                                         AuthenticationException exception) throws IOException, ServletException {
-                        // Store the error message in session to pass to error page
                         String errorMessage = extractErrorMessage(exception);
+                        if (stateless) {
+                            // No session to carry it: the error page also reads error_description
+                            response.sendRedirect("/error?error_description=" + URLEncoder.encode(errorMessage, StandardCharsets.UTF_8));
+                            return;
+                        }
+                        // Store the error message in session to pass to error page
                         request.getSession().setAttribute("errorMessage", errorMessage);
                         response.sendRedirect("/error");
                     }
@@ -0,0 +1,61 @@
+package com.example.strava.config;
+
+import com.example.strava.security.RedisOAuth2AuthorizedClientService;
+import com.example.strava.security.SignedCookieAuthorizationRequestRepository;
+import com.example.strava.security.SignedCookieCodec;
+import com.example.strava.security.SignedCookieSecurityContextRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+
+import java.time.Duration;
+
+/**
+ * Where login state and Strava tokens live.
+ * <p>
+ * {@code strava.session.mode=stateless} replaces the servlet session with signed cookies, and
+ * {@code strava.session.authorized-client-store=redis} shares tokens across nodes. Together they let any
+ * node serve any request without session affinity. The defaults keep the single-node, in-memory behaviour.
+ */
+@Configuration
+public class SessionConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "strava.session.mode", havingValue = "stateless")
+    public SignedCookieCodec signedCookieCodec(
+            @Value("${strava.session.signing-key:}") String signingKey,
+            @Value("${strava.session.cookie-secure:false}") boolean cookieSecure) {
+        return new SignedCookieCodec(signingKey, cookieSecure);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "strava.session.mode", havingValue = "stateless")
+    public SignedCookieSecurityContextRepository signedCookieSecurityContextRepository(
+            SignedCookieCodec signedCookieCodec,
+            ObjectMapper objectMapper,
+            @Value("${strava.session.timeout:8h}") Duration timeout) {
+        return new SignedCookieSecurityContextRepository(signedCookieCodec, objectMapper, timeout);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "strava.session.mode", havingValue = "stateless")
+    public SignedCookieAuthorizationRequestRepository signedCookieAuthorizationRequestRepository(
+            SignedCookieCodec signedCookieCodec) {
+        return new SignedCookieAuthorizationRequestRepository(signedCookieCodec);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "strava.session.authorized-client-store", havingValue = "redis")
+    public OAuth2AuthorizedClientService redisOAuth2AuthorizedClientService(
+            ClientRegistrationRepository clientRegistrationRepository,
+            RedisConnectionFactory redisConnectionFactory,
+            @Value("${strava.session.redis.key-prefix:strava:authorized-client:}") String keyPrefix,
+            @Value("${strava.session.authorized-client-retention:30d}") Duration retention) {
+        return new RedisOAuth2AuthorizedClientService(clientRegistrationRepository, redisConnectionFactory, keyPrefix, retention);
+    }
+}
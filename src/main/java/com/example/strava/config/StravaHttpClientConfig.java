@@ -0,0 +1,90 @@
+package com.example.strava.config;
+
+import com.example.strava.service.StravaRateLimitTracker;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Upstream HTTP client shared by Strava activity fetches (WebClient) and OAuth token/user-info calls
+ * (RestTemplate), so both reuse one sized keep-alive connection pool.
+ * <p>
+ * Pool gauges are published to Micrometer as {@code reactor.netty.connection.provider.*}
+ * (active, idle, pending and total connections) with tag {@code name=strava}.
+ */
+@Configuration
+public class StravaHttpClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider stravaConnectionProvider(
+            @Value("${strava.http.max-connections:50}") int maxConnections,
+            @Value("${strava.http.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${strava.http.pending-acquire-timeout:10s}") Duration pendingAcquireTimeout,
+            @Value("${strava.http.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${strava.http.max-life-time:5m}") Duration maxLifeTime) {
+        return ConnectionProvider.builder("strava")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(maxIdleTime)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public HttpClient stravaHttpClient(
+            ConnectionProvider stravaConnectionProvider,
+            @Value("${strava.api.base-url}") String baseUrl,
+            @Value("${strava.http.connect-timeout:3s}") Duration connectTimeout,
+            @Value("${strava.http.response-timeout:15s}") Duration responseTimeout,
+            @Value("${strava.http.compression:true}") boolean compression,
+            @Value("${strava.http.http2:true}") boolean http2) {
+        HttpClient httpClient = HttpClient.create(stravaConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .compress(compression);
+
+        // HTTP/2 is negotiated via ALPN, so it only applies to TLS endpoints; plain http (local stubs) stays on HTTP/1.1
+        if (http2 && baseUrl.startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
+
+    @Bean
+    public WebClient stravaWebClient(
+            WebClient.Builder webClientBuilder,
+            HttpClient stravaHttpClient,
+            StravaRateLimitTracker rateLimitTracker,
+            @Value("${strava.api.base-url}") String baseUrl) {
+        return webClientBuilder
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(stravaHttpClient))
+                // Every response reports the application's remaining budget; background work reads it from here
+                .filter(ExchangeFilterFunction.ofResponseProcessor(response -> {
+                    rateLimitTracker.record(response.headers().asHttpHeaders());
+                    return Mono.just(response);
+                }))
+                .build();
+    }
+
+    @Bean
+    public ReactorClientHttpRequestFactory stravaRequestFactory(HttpClient stravaHttpClient) {
+        // Timeouts come from the shared HttpClient; the factory does not own its lifecycle
+        return new ReactorClientHttpRequestFactory(stravaHttpClient);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.strava.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Club/team membership: {@code strava.teams.members.<team-id>=<athlete id>,<athlete id>,...}.
+ * Members see each other's combined stats, so list only athletes who agreed to share.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "strava.teams")
+public class TeamProperties {
+    private Map<String, List<String>> members = new LinkedHashMap<>();
+}
@@ -0,0 +1,70 @@
+package com.example.strava.controller;
+
+import com.example.strava.diagnostics.FlightRecordingService;
+import com.example.strava.model.RecordingStatusDto;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Flight recording controls; restricted to {@code strava.admin.athlete-ids} in {@code SecurityConfig}.
+ */
+@RestController
+@RequestMapping("/api/admin/recording")
+public class AdminDiagnosticsController {
+
+    private final FlightRecordingService recordingService;
+
+    public AdminDiagnosticsController(FlightRecordingService recordingService) {
+        this.recordingService = recordingService;
+    }
+
+    @GetMapping
+    public RecordingStatusDto getStatus() {
+        return recordingService.status();
+    }
+
+    @PostMapping("/start")
+    public RecordingStatusDto start(
+            @RequestParam(defaultValue = "profile") String settings,
+            @RequestParam(defaultValue = "30m") String maxAge,
+            @RequestParam(defaultValue = "250MB") String maxSize) {
+        // Both parsers reject malformed values with IllegalArgumentException (400)
+        return recordingService.start(settings, DurationStyle.detectAndParse(maxAge), DataSize.parse(maxSize));
+    }
+
+    @PostMapping("/stop")
+    public RecordingStatusDto stop() {
+        return recordingService.stop();
+    }
+
+    @GetMapping("/dump")
+    public ResponseEntity<StreamingResponseBody> dump() {
+        Path file = recordingService.dump();
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(body);
+    }
+
+    @DeleteMapping
+    public void discard() {
+        recordingService.discard();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.strava.controller;
+
+import java.time.LocalDate;
+
+/**
+ * Request validation shared by the endpoints that take optional {@code after}/{@code before} dates.
+ */
+final class DateRanges {
+
+    private DateRanges() {
+    }
+
+    static void validate(LocalDate after, LocalDate before) {
+        if (after != null && before != null && after.isAfter(before)) {
+            throw new IllegalArgumentException("Start date must be before or equal to end date");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.strava.controller;
+
+import com.example.strava.service.ActivityExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private final ActivityExportService exportService;
+
+    public ExportController(ActivityExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/activities")
+    public ResponseEntity<StreamingResponseBody> exportActivities(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(defaultValue = "csv") String format) {
+
+        DateRanges.validate(after, before);
+        ActivityExportService.Format exportFormat = ActivityExportService.Format.fromParam(format);
+        return attachment("activities", exportFormat,
+                exportService.exportActivities(principal.getName(), after, before, exportFormat));
+    }
+
+    @GetMapping("/aggregates")
+    public ResponseEntity<StreamingResponseBody> exportAggregates(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(defaultValue = "daily") String period,
+            @RequestParam(defaultValue = "csv") String format) {
+
+        DateRanges.validate(after, before);
+        ActivityExportService.Format exportFormat = ActivityExportService.Format.fromParam(format);
+        return attachment(period.toLowerCase() + "-totals", exportFormat,
+                exportService.exportAggregates(principal.getName(), after, before, period, exportFormat));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(String name, ActivityExportService.Format format,
+                                                                    StreamingResponseBody body) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(name + "." + format.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.strava.controller;
 
+import com.example.strava.service.DashboardBootstrapService;
 import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -13,6 +18,17 @@ import org.springframework.web.bind.annotation.GetMapping;
 @Controller
 public class HomeController {
 
+    private static final Logger logger = LoggerFactory.getLogger(HomeController.class);
+
+    private final DashboardBootstrapService dashboardBootstrapService;
+    private final boolean bootstrapEnabled;
+
+    public HomeController(DashboardBootstrapService dashboardBootstrapService,
+                          @Value("${strava.dashboard.bootstrap-enabled:false}") boolean bootstrapEnabled) {
+        this.dashboardBootstrapService = dashboardBootstrapService;
+        this.bootstrapEnabled = bootstrapEnabled;
+    }
+
     @GetMapping("/")
     public String home() {
         return "index";
@@ -24,6 +40,14 @@ public class HomeController {
             model.addAttribute("name", principal.getAttribute("firstname") + " " + principal.getAttribute("lastname"));
             model.addAttribute("username", principal.getAttribute("username"));
             model.addAttribute("profile", principal.getAttribute("profile"));
+            if (bootstrapEnabled) {
+                try {
+                    model.addAttribute("bootstrapJson", dashboardBootstrapService.bootstrapJson(principal.getName()));
+                } catch (RuntimeException e) {
+                    // Still render the page; the dashboard script falls back to its API calls
+                    logger.warn("Could not precompute dashboard data for {}: {}", principal.getName(), e.getMessage());
+                }
+            }
         }
         return "dashboard";
     }
@@ -31,9 +55,11 @@ public class HomeController {
     @GetMapping("/error")
     public String handleError(HttpServletRequest request, Model model) {
         // Check if error message was stored in session by AuthenticationFailureHandler
-        String sessionErrorMessage = (String) request.getSession().getAttribute("errorMessage");
+        // (don't create a session just to look; stateless mode never has one)
+        HttpSession session = request.getSession(false);
+        String sessionErrorMessage = session != null ? (String) session.getAttribute("errorMessage") : null;
         if (sessionErrorMessage != null && !sessionErrorMessage.isEmpty()) {
-            request.getSession().removeAttribute("errorMessage");
+            session.removeAttribute("errorMessage");
             model.addAttribute("errorMessage", sessionErrorMessage);
             Object status = request.getAttribute(RequestDispatcher.ERROR_STATUS_CODE);
             model.addAttribute("status", status != null ? status.toString() : "Unknown");
@@ -0,0 +1,35 @@
+package com.example.strava.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Response headers marking how complete and how current an answer built from fetched activities is.
+ */
+final class ResultHeaders {
+
+    static final String PARTIAL_RESULTS_HEADER = "X-Strava-Partial-Results";
+    static final String STALE_RESULTS_HEADER = "X-Strava-Stale-Results";
+
+    private ResultHeaders() {
+    }
+
+    static void mark(HttpServletResponse response, boolean partial, boolean stale, Instant fetchedAt) {
+        mark(response, partial, stale, Duration.between(fetchedAt, Instant.now()).toSeconds());
+    }
+
+    static void mark(HttpServletResponse response, boolean partial, boolean stale, long ageSeconds) {
+        if (partial) {
+            // Upstream gave up part-way; the next request resumes from the saved checkpoint
+            response.setHeader(PARTIAL_RESULTS_HEADER, "true");
+        }
+        // How long ago the activities were read from Strava; stale ones are being refreshed in the background
+        response.setHeader(HttpHeaders.AGE, String.valueOf(ageSeconds));
+        if (stale) {
+            response.setHeader(STALE_RESULTS_HEADER, "true");
+        }
+    }
+}
@@ -2,8 +2,14 @@ package com.example.strava.controller;
 
 import com.example.strava.dto.SummaryStatsDto;
 import com.example.strava.model.*;
+import com.example.strava.service.ActivityHistogram;
+import com.example.strava.service.BestEffortService;
+import com.example.strava.service.PercentileService;
+import com.example.strava.service.PeriodComparisonService;
+import com.example.strava.service.StatsQuery;
 import com.example.strava.service.StravaApiService;
 import com.example.strava.service.StravaStatsService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -18,26 +24,36 @@ public class StravaStatsController {
 
     private final StravaApiService stravaApiService;
     private final StravaStatsService stravaStatsService;
+    private final PercentileService percentileService;
+    private final BestEffortService bestEffortService;
+    private final PeriodComparisonService periodComparisonService;
 
-    public StravaStatsController(StravaApiService stravaApiService, StravaStatsService stravaStatsService) {
+    public StravaStatsController(StravaApiService stravaApiService, StravaStatsService stravaStatsService,
+                                 PercentileService percentileService, BestEffortService bestEffortService,
+                                 PeriodComparisonService periodComparisonService) {
         this.stravaApiService = stravaApiService;
         this.stravaStatsService = stravaStatsService;
+        this.percentileService = percentileService;
+        this.bestEffortService = bestEffortService;
+        this.periodComparisonService = periodComparisonService;
     }
 
-    private void validateDateRange(LocalDate after, LocalDate before) {
-        if (after != null && before != null && after.isAfter(before)) {
-            throw new IllegalArgumentException("Start date must be before or equal to end date");
-        }
+    private List<StravaActivity> fetchActivities(OAuth2User principal, LocalDate after, LocalDate before,
+                                                 HttpServletResponse response) {
+        DateRanges.validate(after, before);
+        ActivityFetchResult result = stravaApiService.getAllActivities(principal.getName(), after, before);
+        ResultHeaders.mark(response, result.isPartial(), result.isStale(), result.getFetchedAt());
+        return result.getActivities();
     }
 
     @GetMapping("/summary")
     public SummaryStatsDto getSummary(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
         return stravaStatsService.getSummaryStats(activities);
     }
 
@@ -45,10 +61,10 @@ public class StravaStatsController {
     public List<ActivityCountDto> getActivityCountDistribution(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
         return stravaStatsService.getActivityCountDistribution(activities);
     }
 
@@ -56,32 +72,57 @@ public class StravaStatsController {
     public List<TimeDistributionDto> getTimeDistribution(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
         return stravaStatsService.getTimeDistribution(activities);
     }
 
+    @GetMapping("/time-distribution/punch-card")
+    public PunchCardDto getPunchCard(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(defaultValue = "all") String sportType,
+            HttpServletResponse response) {
+
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
+        return stravaStatsService.getPunchCard(activities, sportType);
+    }
+
     @GetMapping("/workout-heatmap")
     public List<HeatmapDataDto> getWorkoutHeatmap(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
         return stravaStatsService.getWorkoutHeatmapData(activities);
     }
 
+    @GetMapping("/workout-heatmap/compact")
+    public CompactHeatmapDto getWorkoutHeatmapCompact(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
+
+        // Checked first so an over-long range is rejected before any upstream call
+        stravaStatsService.validateCompactHeatmapRange(after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
+        return stravaStatsService.getWorkoutHeatmapCompact(activities, after, before);
+    }
+
     @GetMapping("/workout-heatmap/summary")
     public WorkoutHeatmapDto getWorkoutHeatmapSummary(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
         LocalDate reference = (before != null) ? before : LocalDate.now();
         return stravaStatsService.getWorkoutHeatmapSummary(activities, reference, after);
     }
@@ -90,10 +131,10 @@ public class StravaStatsController {
     public RunStatsDto getRunStatistics(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
         return stravaStatsService.getRunStatistics(activities);
     }
 
@@ -101,33 +142,54 @@ public class StravaStatsController {
     public List<RunDistributionDto> getRunDistribution(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(defaultValue = "distance") String metric,
+            @RequestParam(required = false) String unit,
+            @RequestParam(defaultValue = "1") double binWidth,
+            @RequestParam(defaultValue = "10") int bins,
+            @RequestParam(defaultValue = "false") boolean overflow,
+            @RequestParam(required = false) String sportType,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
-        return stravaStatsService.getRunDistribution(activities);
+        // Defaults reproduce the original ten one-mile run buckets
+        ActivityHistogram.Spec spec = ActivityHistogram.Spec.of(metric, unit, binWidth, bins, overflow, sportType);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
+        return stravaStatsService.getDistribution(activities, spec);
     }
 
     @GetMapping("/running-heatmap")
     public List<HeatmapDataDto> getRunningHeatmap(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
         return stravaStatsService.getRunningHeatmap(activities);
     }
 
+    @GetMapping("/running-heatmap/compact")
+    public CompactHeatmapDto getRunningHeatmapCompact(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
+
+        // Checked first so an over-long range is rejected before any upstream call
+        stravaStatsService.validateCompactHeatmapRange(after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
+        return stravaStatsService.getRunningHeatmapCompact(activities, after, before);
+    }
+
     @GetMapping("/mileage-trend")
     public List<TrendDataDto> getMileageTrend(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(defaultValue = "daily") String period,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
         return stravaStatsService.getMileageTrend(activities, period);
     }
 
@@ -136,10 +198,71 @@ public class StravaStatsController {
             @AuthenticationPrincipal OAuth2User principal,
             @RequestParam(defaultValue = "daily") String period,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
 
-        validateDateRange(after, before);
-        List<StravaActivity> activities = stravaApiService.getAllActivities(principal.getName(), after, before);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
         return stravaStatsService.getPaceTrend(activities, period);
     }
+
+    @GetMapping("/percentiles")
+    public List<PercentileDto> getPercentiles(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(defaultValue = "pace") String metric,
+            @RequestParam(required = false) String sportType,
+            @RequestParam(defaultValue = "all") String period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
+
+        DateRanges.validate(after, before);
+        PercentileService.Percentiles percentiles = percentileService.getPercentiles(principal.getName(), after, before,
+                PercentileService.Metric.fromParam(metric), sportType, period);
+        ResultHeaders.mark(response, percentiles.partial(), percentiles.stale(), percentiles.fetchedAt());
+        return percentiles.buckets();
+    }
+
+    @GetMapping("/best-efforts")
+    public List<BestEffortDto> getBestEfforts(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
+
+        DateRanges.validate(after, before);
+        BestEffortService.BestEffortResult result = bestEffortService.getBestEfforts(principal.getName(), after, before);
+        // Partial also while some runs still lack streams; later requests fetch more of them
+        ResultHeaders.mark(response, result.partial(), result.stale(), result.fetchedAt());
+        return result.efforts();
+    }
+
+    @GetMapping("/compare")
+    public List<PeriodStatsDto> compare(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam List<String> range,
+            HttpServletResponse response) {
+
+        // One fetch covering every range; the periods are split out of it
+        List<PeriodComparisonService.DateRange> ranges = PeriodComparisonService.parseRanges(range);
+        PeriodComparisonService.DateRange span = PeriodComparisonService.DateRange.span(ranges);
+        List<StravaActivity> activities = fetchActivities(principal, span.after(), span.before(), response);
+        return periodComparisonService.compare(activities, ranges);
+    }
+
+    @GetMapping("/query")
+    public List<QueryRowDto> query(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(defaultValue = "count") String metrics,
+            @RequestParam(required = false) String sportType,
+            @RequestParam(defaultValue = "0") double minDistance,
+            HttpServletResponse response) {
+
+        // Parse first so a malformed query is rejected before any upstream call
+        StatsQuery query = StatsQuery.parse(groupBy, metrics, sportType, minDistance);
+        List<StravaActivity> activities = fetchActivities(principal, after, before, response);
+        return stravaStatsService.query(activities, query);
+    }
 }
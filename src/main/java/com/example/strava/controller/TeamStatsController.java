@@ -0,0 +1,55 @@
+package com.example.strava.controller;
+
+import com.example.strava.model.LeaderboardEntryDto;
+import com.example.strava.model.TeamStatsDto;
+import com.example.strava.service.TeamStatsService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/teams")
+public class TeamStatsController {
+
+    private final TeamStatsService teamStatsService;
+
+    public TeamStatsController(TeamStatsService teamStatsService) {
+        this.teamStatsService = teamStatsService;
+    }
+
+    @GetMapping("/{teamId}/stats")
+    public TeamStatsDto getTeamStats(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable String teamId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(defaultValue = "weekly") String period,
+            HttpServletResponse response) {
+
+        DateRanges.validate(after, before);
+        TeamStatsDto stats = teamStatsService.getTeamStats(teamId, principal.getName(), after, before, period);
+        ResultHeaders.mark(response, stats.isPartial(), stats.isStale(), stats.getAgeSeconds());
+        return stats;
+    }
+
+    @GetMapping("/{teamId}/leaderboard")
+    public List<LeaderboardEntryDto> getLeaderboard(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable String teamId,
+            @RequestParam(defaultValue = "total-miles") String metric,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            HttpServletResponse response) {
+
+        DateRanges.validate(after, before);
+        TeamStatsService.Leaderboard leaderboard =
+                teamStatsService.getLeaderboard(teamId, principal.getName(), after, before, metric);
+        ResultHeaders.mark(response, leaderboard.partial(), leaderboard.stale(), leaderboard.fetchedAt());
+        return leaderboard.entries();
+    }
+}
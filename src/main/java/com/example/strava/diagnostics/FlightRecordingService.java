@@ -0,0 +1,125 @@
+package com.example.strava.diagnostics;
+
+import com.example.strava.model.RecordingStatusDto;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * One managed flight recording that admins can start, stop, download and discard at runtime.
+ * <p>
+ * With {@code strava.diagnostics.continuous-recording=true} a bounded recording with the low-overhead
+ * {@code default} settings starts with the application, so a dump always covers the last
+ * {@code max-age} of upstream pages, fallbacks and stats computations.
+ */
+@Service
+public class FlightRecordingService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+    private static final String RECORDING_NAME = "strava-stats";
+
+    private Recording recording;
+    private String settings;
+
+    public FlightRecordingService(
+            @Value("${strava.diagnostics.continuous-recording:false}") boolean continuous,
+            @Value("${strava.diagnostics.max-age:30m}") Duration maxAge,
+            @Value("${strava.diagnostics.max-size:100MB}") DataSize maxSize) {
+        if (continuous) {
+            start("default", maxAge, maxSize);
+        }
+    }
+
+    /**
+     * @param settings {@code default} (about 1% overhead) or {@code profile} (more detail, about 2%)
+     */
+    public synchronized RecordingStatusDto start(String settings, Duration maxAge, DataSize maxSize) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalArgumentException("A recording is already running; stop or discard it first");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown recording settings: " + settings);
+        }
+        discard();
+
+        Recording started = new Recording(configuration);
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSize.toBytes());
+        started.start();
+        recording = started;
+        this.settings = settings;
+        logger.info("Started flight recording with {} settings (max age {}, max size {})", settings, maxAge, maxSize);
+        return status();
+    }
+
+    public synchronized RecordingStatusDto stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalArgumentException("No recording is running");
+        }
+        recording.stop();
+        logger.info("Stopped flight recording");
+        return status();
+    }
+
+    /**
+     * Writes the recording so far to a temporary file, which the caller deletes. A running recording keeps
+     * going.
+     */
+    public synchronized Path dump() {
+        if (recording == null) {
+            throw new IllegalArgumentException("No recording to dump");
+        }
+        try {
+            Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+            recording.dump(file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            settings = null;
+        }
+    }
+
+    public synchronized RecordingStatusDto status() {
+        if (recording == null) {
+            return new RecordingStatusDto("NONE", null, null, 0, null, 0);
+        }
+        Instant start = recording.getStartTime();
+        Instant end = recording.getState() == RecordingState.RUNNING ? Instant.now() : recording.getStopTime();
+        return new RecordingStatusDto(recording.getState().name(), settings,
+                start != null ? start.toString() : null,
+                start != null && end != null ? Duration.between(start, end).toSeconds() : 0,
+                recording.getMaxAge() != null ? recording.getMaxAge().toString() : null,
+                recording.getMaxSize());
+    }
+
+    @Override
+    public void destroy() {
+        discard();
+    }
+}
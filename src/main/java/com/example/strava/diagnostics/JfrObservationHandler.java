@@ -0,0 +1,120 @@
+package com.example.strava.diagnostics;
+
+import com.example.strava.service.ActivityAggregate;
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.aop.ObservedAspect;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Turns the upstream page and stats observations into JFR events, so a flight recording shows the same
+ * breakdown as a trace without any sampling. Events are only built while a recording has them enabled.
+ */
+@Component
+public class JfrObservationHandler implements ObservationHandler<Observation.Context> {
+
+    private static final String PAGE = "strava.activities.page";
+    private static final String STATS = "strava.stats";
+
+    private record StatsStart(StatsComputationEvent event, long allocatedBytes) {
+    }
+
+    private final com.sun.management.ThreadMXBean threads =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mxBean
+                    && mxBean.isThreadAllocatedMemorySupported() ? mxBean : null;
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return PAGE.equals(context.getName()) || STATS.equals(context.getName());
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        if (PAGE.equals(context.getName())) {
+            UpstreamPageEvent event = new UpstreamPageEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                context.put(UpstreamPageEvent.class, event);
+            }
+        } else {
+            StatsComputationEvent event = new StatsComputationEvent();
+            if (event.isEnabled()) {
+                context.put(StatsStart.class, new StatsStart(event, allocatedBytes()));
+                event.begin();
+            }
+        }
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        UpstreamPageEvent page = context.get(UpstreamPageEvent.class);
+        if (page != null) {
+            page.end();
+            if (page.shouldCommit()) {
+                page.athleteId = value(context, "athlete");
+                page.page = intValue(context, "page");
+                page.attempts = intValue(context, "attempts");
+                page.items = intValue(context, "items");
+                page.error = error(context);
+                page.commit();
+            }
+            return;
+        }
+
+        StatsStart stats = context.get(StatsStart.class);
+        if (stats != null) {
+            StatsComputationEvent event = stats.event();
+            event.end();
+            if (event.shouldCommit()) {
+                event.allocatedBytes = allocatedBytes() - stats.allocatedBytes();
+                event.athleteId = currentAthlete();
+                if (context instanceof ObservedAspect.ObservedAspectContext observed) {
+                    event.operation = observed.getProceedingJoinPoint().getSignature().getName();
+                    event.activityCount = activityCount(observed.getProceedingJoinPoint().getArgs());
+                }
+                event.error = error(context);
+                event.commit();
+            }
+        }
+    }
+
+    private long allocatedBytes() {
+        return threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static long activityCount(Object[] args) {
+        if (args.length > 0 && args[0] instanceof List<?> activities) {
+            return activities.size();
+        }
+        if (args.length > 0 && args[0] instanceof ActivityAggregate aggregate) {
+            return aggregate.getActivityCount();
+        }
+        return -1;
+    }
+
+    // Stats calls run on the request thread, where the caller is still the authenticated athlete
+    private static String currentAthlete() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private static String value(Observation.Context context, String key) {
+        KeyValue keyValue = context.getHighCardinalityKeyValue(key);
+        return keyValue != null ? keyValue.getValue() : null;
+    }
+
+    private static int intValue(Observation.Context context, String key) {
+        String value = value(context, key);
+        return value != null ? Integer.parseInt(value) : 0;
+    }
+
+    private static String error(Observation.Context context) {
+        return context.getError() != null ? context.getError().toString() : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.strava.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.strava.ResilienceFallback")
+@Label("Resilience Fallback")
+@Category({"Strava", "Upstream"})
+@Description("A circuit breaker transition or rejection, or a request answered with partial results")
+@StackTrace(false)
+public class ResilienceFallbackEvent extends Event {
+
+    @Label("Athlete")
+    String athleteId;
+
+    @Label("Kind")
+    String kind;
+
+    @Label("Detail")
+    String detail;
+
+    public static void emit(String athleteId, String kind, String detail) {
+        ResilienceFallbackEvent event = new ResilienceFallbackEvent();
+        if (event.isEnabled()) {
+            event.athleteId = athleteId;
+            event.kind = kind;
+            event.detail = detail;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.strava.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.strava.StatsComputation")
+@Label("Stats Computation")
+@Category({"Strava", "Stats"})
+@Description("One StravaStatsService call")
+@StackTrace(false)
+class StatsComputationEvent extends Event {
+
+    @Label("Athlete")
+    String athleteId;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Activities")
+    long activityCount;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the calling thread; parallel aggregation on the fork-join pool is not included")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Error")
+    String error;
+}
@@ -0,0 +1,31 @@
+package com.example.strava.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.strava.UpstreamPage")
+@Label("Strava Page Fetch")
+@Category({"Strava", "Upstream"})
+@Description("One page of an athlete's activity history, including retries and the backoff between them")
+@StackTrace(false)
+class UpstreamPageEvent extends Event {
+
+    @Label("Athlete")
+    String athleteId;
+
+    @Label("Page")
+    int page;
+
+    @Label("Attempts")
+    int attempts;
+
+    @Label("Activities")
+    int items;
+
+    @Label("Error")
+    String error;
+}
@@ -0,0 +1,20 @@
+package com.example.strava.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is shed instead of queued; mapped to 503 with a {@code Retry-After} hint.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
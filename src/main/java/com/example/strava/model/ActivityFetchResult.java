@@ -0,0 +1,17 @@
+package com.example.strava.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ActivityFetchResult {
+    private List<StravaActivity> activities;
+    private boolean partial; // true when upstream gave up before the whole range was paginated
+    private int pagesFetched;
+    private Instant fetchedAt; // when the activities were read from Strava
+    private boolean stale; // served from the store past its freshness window while a refresh runs
+}
@@ -0,0 +1,17 @@
+package com.example.strava.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BestEffortDto {
+    private String distance; // "1K", "1 mile", "5K", ...
+    private double distanceMeters;
+    private double elapsedSeconds;
+    private String formattedTime; // h:mm:ss or mm:ss
+    private String pace; // mm:ss per mile
+    private Long activityId;
+    private String activityName;
+    private String date;
+}
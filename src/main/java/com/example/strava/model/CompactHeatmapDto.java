@@ -0,0 +1,22 @@
+package com.example.strava.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * A heatmap as dense per-day arrays: day {@code i} is {@code startDate + i}, inactive days included.
+ */
+@Data
+@AllArgsConstructor
+public class CompactHeatmapDto {
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate startDate; // null when the range is empty
+    private int days;
+    private int valueScale; // values are in 1/valueScale hours or miles
+    private int[] values;
+    private int bitsPerLevel;
+    private byte[] levels; // intensity per day, bitsPerLevel bits each, low bits first; base64 in JSON
+}
@@ -0,0 +1,13 @@
+package com.example.strava.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LeaderboardEntryDto {
+    private int rank;
+    private String athleteId;
+    private double value; // miles, count, feet or seconds depending on the metric
+    private String formattedValue;
+}
@@ -0,0 +1,17 @@
+package com.example.strava.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PercentileDto {
+    private String label; // "all", or a day, week or month label
+    private long count; // activities in the bucket
+    private double p10;
+    private double p50;
+    private double p90;
+    private String formattedP10;
+    private String formattedP50;
+    private String formattedP90;
+}
@@ -0,0 +1,22 @@
+package com.example.strava.model;
+
+import com.example.strava.dto.SummaryStatsDto;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class PeriodStatsDto {
+    private LocalDate after;
+    private LocalDate before;
+    private SummaryStatsDto summary;
+    private List<ActivityCountDto> activityCounts;
+    private RunStatsDto runStatistics;
+    private WorkoutHeatmapDto streaks;
+    private Map<String, Double> metrics; // comparable numbers behind the DTOs above
+    private Map<String, Double> deltas; // metrics minus the first period's; empty for the first period
+}
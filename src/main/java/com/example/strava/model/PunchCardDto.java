@@ -0,0 +1,17 @@
+package com.example.strava.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Activity by weekday and hour of local start time: {@code [day][hour]}, day 0 is Monday and hour 0 is midnight.
+ */
+@Data
+@AllArgsConstructor
+public class PunchCardDto {
+    private String sportType; // "all" when every activity is counted
+    private int totalActivities;
+    private int[][] counts;
+    private double[][] hours; // moving time
+    private double[][] miles;
+}
@@ -0,0 +1,13 @@
+package com.example.strava.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class QueryRowDto {
+    private Map<String, String> group; // dimension -> label, e.g. sport=Ride, month=2024-05
+    private Map<String, Double> values; // metric -> value; null when no activity in the group had the field
+}
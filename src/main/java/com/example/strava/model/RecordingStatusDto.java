@@ -0,0 +1,15 @@
+package com.example.strava.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RecordingStatusDto {
+    private String state; // NONE, RUNNING, STOPPED
+    private String settings; // "default" or "profile"
+    private String startTime;
+    private long durationSeconds;
+    private String maxAge;
+    private long maxSizeBytes;
+}
@@ -0,0 +1,18 @@
+package com.example.strava.model;
+
+import lombok.Data;
+
+/**
+ * Response of {@code /activities/{id}/streams?keys=time,distance&key_by_type=true}; only the streams
+ * needed for best efforts are mapped.
+ */
+@Data
+public class StravaStreamSet {
+    private Stream time;
+    private Stream distance;
+
+    @Data
+    public static class Stream {
+        private double[] data; // seconds since start, or cumulative meters
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.strava.model;
+
+import com.example.strava.dto.SummaryStatsDto;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TeamStatsDto {
+    private String teamId;
+    private int memberCount;
+    private int includedMembers;
+    private List<String> unavailableMembers; // not logged in yet, or their history could not be fetched
+    private boolean partial; // some member histories were only partly fetched
+    private boolean stale; // some member histories came from old snapshots that are being refreshed
+    private long ageSeconds; // how long ago the oldest member history was read from Strava
+    private SummaryStatsDto summary;
+    private List<ActivityCountDto> activityCounts;
+    private List<TimeDistributionDto> timeDistribution;
+    private RunStatsDto runStatistics;
+    private List<TrendDataDto> mileageTrend;
+}
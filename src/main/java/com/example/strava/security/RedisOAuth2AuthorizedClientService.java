@@ -0,0 +1,78 @@
+package com.example.strava.security;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+/**
+ * Authorized clients (Strava access and refresh tokens) shared by all nodes through a Redis-protocol server.
+ * <p>
+ * Only the tokens are stored; the {@link ClientRegistration} is resolved from configuration on load, the
+ * same way Spring's JDBC implementation does, so rotating the client secret doesn't strand stored entries.
+ */
+public class RedisOAuth2AuthorizedClientService implements OAuth2AuthorizedClientService {
+
+    private record StoredClient(String principalName, OAuth2AccessToken accessToken,
+                                OAuth2RefreshToken refreshToken) implements Serializable {
+    }
+
+    private final ClientRegistrationRepository clientRegistrationRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String keyPrefix;
+    private final Duration retention;
+
+    public RedisOAuth2AuthorizedClientService(ClientRegistrationRepository clientRegistrationRepository,
+                                              RedisConnectionFactory connectionFactory,
+                                              String keyPrefix, Duration retention) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.java());
+        template.afterPropertiesSet();
+        this.clientRegistrationRepository = clientRegistrationRepository;
+        this.redisTemplate = template;
+        this.keyPrefix = keyPrefix;
+        this.retention = retention;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        ClientRegistration registration = clientRegistrationRepository.findByRegistrationId(clientRegistrationId);
+        if (registration == null) {
+            return null;
+        }
+        Object stored = redisTemplate.opsForValue().get(key(clientRegistrationId, principalName));
+        if (!(stored instanceof StoredClient client)) {
+            return null;
+        }
+        return (T) new OAuth2AuthorizedClient(registration, client.principalName(), client.accessToken(), client.refreshToken());
+    }
+
+    @Override
+    public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        StoredClient stored = new StoredClient(principal.getName(), authorizedClient.getAccessToken(),
+                authorizedClient.getRefreshToken());
+        redisTemplate.opsForValue().set(
+                key(authorizedClient.getClientRegistration().getRegistrationId(), principal.getName()), stored, retention);
+    }
+
+    @Override
+    public void removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        redisTemplate.delete(key(clientRegistrationId, principalName));
+    }
+
+    private String key(String clientRegistrationId, String principalName) {
+        return keyPrefix + clientRegistrationId + ":" + principalName;
+    }
+}
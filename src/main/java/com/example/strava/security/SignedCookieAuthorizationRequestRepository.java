@@ -0,0 +1,87 @@
+package com.example.strava.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.util.SerializationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.time.Duration;
+
+/**
+ * Holds the in-flight OAuth2 authorization request (state, redirect URI) in a short-lived signed cookie,
+ * so the Strava callback can land on a different node than the one that started the login.
+ * <p>
+ * The cookie is only deserialized after its signature has been verified, and then only into the classes an
+ * authorization request is made of; anything else, or a payload that fails to read, counts as no request.
+ */
+public class SignedCookieAuthorizationRequestRepository implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignedCookieAuthorizationRequestRepository.class);
+
+    public static final String COOKIE_NAME = "STRAVA_OAUTH2_REQUEST";
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+    private static final ObjectInputFilter ALLOWED_CLASSES = ObjectInputFilter.Config.createFilter(
+            "maxdepth=10;maxrefs=1000;maxarray=1024;maxbytes=16384;"
+                    + "org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;"
+                    + "org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationResponseType;"
+                    + "org.springframework.security.oauth2.core.AuthorizationGrantType;"
+                    + "java.lang.String;java.lang.Boolean;java.lang.Number;java.lang.Integer;java.lang.Long;"
+                    + "java.util.Collections$*;java.util.ImmutableCollections$*;java.util.CollSer;"
+                    + "java.util.HashMap;java.util.LinkedHashMap;java.util.HashSet;java.util.LinkedHashSet;"
+                    + "java.util.ArrayList;!*");
+
+    private final SignedCookieCodec cookieCodec;
+
+    public SignedCookieAuthorizationRequestRepository(SignedCookieCodec cookieCodec) {
+        this.cookieCodec = cookieCodec;
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+        String state = request.getParameter(OAuth2ParameterNames.STATE);
+        if (state == null) {
+            return null;
+        }
+        OAuth2AuthorizationRequest authorizationRequest = cookieCodec.read(request, COOKIE_NAME)
+                .map(SignedCookieAuthorizationRequestRepository::deserialize)
+                .orElse(null);
+        return authorizationRequest != null && state.equals(authorizationRequest.getState()) ? authorizationRequest : null;
+    }
+
+    @Override
+    public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest, HttpServletRequest request,
+                                         HttpServletResponse response) {
+        if (authorizationRequest == null) {
+            cookieCodec.clear(response, COOKIE_NAME);
+            return;
+        }
+        cookieCodec.write(response, COOKIE_NAME, SerializationUtils.serialize(authorizationRequest), MAX_AGE);
+    }
+
+    private static OAuth2AuthorizationRequest deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(ALLOWED_CLASSES);
+            return in.readObject() instanceof OAuth2AuthorizationRequest authorizationRequest ? authorizationRequest : null;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            logger.debug("Ignoring unreadable authorization request cookie: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request, HttpServletResponse response) {
+        OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+        if (authorizationRequest != null) {
+            cookieCodec.clear(response, COOKIE_NAME);
+        }
+        return authorizationRequest;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.strava.security;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Writes and reads HMAC-SHA256 signed cookies ({@code base64url(expiry + payload).base64url(signature)}).
+ * <p>
+ * Every node configured with the same signing key accepts cookies issued by any other node, which is
+ * what lets the app run without session affinity. Payloads are signed, not encrypted.
+ * <p>
+ * The signature covers the cookie name and an expiry as well as the payload, so a valid cookie cannot be
+ * replayed under another name (where a different reader would parse it) or after its max-age, even by a
+ * client that ignores the cookie's own expiry.
+ */
+public class SignedCookieCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final boolean secure;
+    private final Clock clock;
+
+    public SignedCookieCodec(String signingKey, boolean secure) {
+        this(signingKey, secure, Clock.systemUTC());
+    }
+
+    SignedCookieCodec(String signingKey, boolean secure, Clock clock) {
+        if (signingKey == null || signingKey.length() < 32) {
+            throw new IllegalStateException("strava.session.signing-key must be set to at least 32 characters in stateless mode");
+        }
+        this.key = new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.secure = secure;
+        this.clock = clock;
+    }
+
+    public void write(HttpServletResponse response, String name, byte[] payload, Duration maxAge) {
+        long expiresAt = clock.instant().plus(maxAge).getEpochSecond();
+        byte[] body = ByteBuffer.allocate(Long.BYTES + payload.length).putLong(expiresAt).put(payload).array();
+        String value = ENCODER.encodeToString(body) + "." + ENCODER.encodeToString(sign(name, body));
+        addCookie(response, name, value, maxAge);
+    }
+
+    public Optional<byte[]> read(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return Optional.empty();
+        }
+        for (Cookie cookie : cookies) {
+            if (name.equals(cookie.getName())) {
+                return verify(name, cookie.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void clear(HttpServletResponse response, String name) {
+        addCookie(response, name, "", Duration.ZERO);
+    }
+
+    private Optional<byte[]> verify(String name, String value) {
+        int dot = value.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] body = DECODER.decode(value.substring(0, dot));
+            byte[] signature = DECODER.decode(value.substring(dot + 1));
+            if (body.length < Long.BYTES || !MessageDigest.isEqual(sign(name, body), signature)) {
+                return Optional.empty();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            if (buffer.getLong() < clock.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+            byte[] payload = new byte[buffer.remaining()];
+            buffer.get(payload);
+            return Optional.of(payload);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String name, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(name.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0); // cookie names never contain NUL, so name and body cannot run together
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign cookie", e);
+        }
+    }
+
+    private void addCookie(HttpServletResponse response, String name, String value, Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(name, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Lax") // still sent on the top-level redirect back from Strava
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.strava.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the logged-in athlete in a signed cookie instead of the servlet session.
+ * <p>
+ * Only the attributes the app reads ({@code id}, {@code username}, {@code firstname}, {@code lastname},
+ * {@code profile}) are carried, which keeps the cookie well under browser limits.
+ */
+public class SignedCookieSecurityContextRepository implements SecurityContextRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignedCookieSecurityContextRepository.class);
+
+    public static final String COOKIE_NAME = "STRAVA_SESSION";
+    private static final String NAME_ATTRIBUTE = "id"; // spring.security.oauth2.client.provider.strava.user-name-attribute
+    private static final List<String> KEPT_ATTRIBUTES = List.of(NAME_ATTRIBUTE, "username", "firstname", "lastname", "profile");
+
+    private record SessionPayload(String registrationId, Map<String, Object> attributes,
+                                  List<String> authorities, long expiresAt) {
+    }
+
+    private final SignedCookieCodec cookieCodec;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    public SignedCookieSecurityContextRepository(SignedCookieCodec cookieCodec, ObjectMapper objectMapper, Duration timeout) {
+        this.cookieCodec = cookieCodec;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        cookieCodec.read(requestResponseHolder.getRequest(), COOKIE_NAME)
+                .flatMap(this::parse)
+                .ifPresent(context::setAuthentication);
+        return context;
+    }
+
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        // Only called explicitly: on successful login, and with an empty context on logout
+        Authentication authentication = context.getAuthentication();
+        if (!(authentication instanceof OAuth2AuthenticationToken token)) {
+            if (containsContext(request)) {
+                cookieCodec.clear(response, COOKIE_NAME);
+            }
+            return;
+        }
+
+        OAuth2User user = token.getPrincipal();
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (String name : KEPT_ATTRIBUTES) {
+            Object value = user.getAttribute(name);
+            if (value != null) attributes.put(name, value);
+        }
+        attributes.putIfAbsent(NAME_ATTRIBUTE, user.getName());
+        List<String> authorities = token.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+        SessionPayload payload = new SessionPayload(token.getAuthorizedClientRegistrationId(), attributes, authorities,
+                Instant.now().plus(timeout).getEpochSecond());
+        try {
+            cookieCodec.write(response, COOKIE_NAME, objectMapper.writeValueAsBytes(payload), timeout);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write session cookie", e);
+        }
+    }
+
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        return cookieCodec.read(request, COOKIE_NAME).isPresent();
+    }
+
+    private Optional<Authentication> parse(byte[] bytes) {
+        try {
+            SessionPayload payload = objectMapper.readValue(bytes, new TypeReference<SessionPayload>() { });
+            if (payload.expiresAt() < Instant.now().getEpochSecond()) {
+                return Optional.empty();
+            }
+            List<GrantedAuthority> authorities = payload.authorities().stream()
+                    .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                    .toList();
+            OAuth2User user = new DefaultOAuth2User(authorities, payload.attributes(), NAME_ATTRIBUTE);
+            return Optional.of(new OAuth2AuthenticationToken(user, authorities, payload.registrationId()));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("Ignoring unreadable session cookie: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.strava.service;
+
+import com.example.strava.model.StravaActivity;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Mergeable partial statistics over a slice of an activity history.
+ * <p>
+ * Every field is a count, a sum, a per-key sum or an extreme, so {@link #merge} is associative and
+ * chunks can be aggregated independently. {@link #parallel} splits large histories across the common
+ * fork-join pool, and {@link #mergeAll} combines whole per-athlete aggregates into a team view;
+ * {@link StravaStatsService} derives its DTOs from the merged result.
+ */
+@Getter
+public final class ActivityAggregate {
+
+    static final double METERS_TO_MILES = 0.000621371;
+    static final double METERS_TO_FEET = 3.28084;
+
+    private long activityCount;
+    private long totalMovingTime;
+    private final Map<String, Long> countByType = new HashMap<>();
+    private final Map<String, Integer> movingTimeByType = new HashMap<>();
+    private final Map<LocalDate, Double> dailyHours = new HashMap<>();
+
+    private int totalRuns;
+    private int runs10KPlus;
+    private double runMiles;
+    private double runSeconds;
+    private double fastestMilePace = Double.POSITIVE_INFINITY; // seconds per mile, runs of a mile or more
+    private int fastest10KSeconds = Integer.MAX_VALUE;
+    private double longestRunMiles;
+    private double mostElevationFeet;
+    private final Map<LocalDate, Double> runDailyMiles = new HashMap<>();
+    private final Map<LocalDate, Double> runDailySeconds = new HashMap<>();
+
+    ActivityAggregate() {
+    }
+
+    public static ActivityAggregate of(List<StravaActivity> activities) {
+        ActivityAggregate aggregate = new ActivityAggregate();
+        activities.forEach(aggregate::add);
+        return aggregate;
+    }
+
+    /**
+     * Aggregates {@code activities} in chunks of at most {@code chunkSize} on the common fork-join pool.
+     */
+    public static ActivityAggregate parallel(List<StravaActivity> activities, int chunkSize) {
+        return ForkJoinPool.commonPool().invoke(new AggregationTask(activities, 0, activities.size(), Math.max(1, chunkSize)));
+    }
+
+    /**
+     * Merges already-built aggregates in parallel without modifying them, so cached partials can be reused.
+     */
+    public static ActivityAggregate mergeAll(Collection<ActivityAggregate> aggregates) {
+        return aggregates.parallelStream().collect(ActivityAggregate::new, ActivityAggregate::merge, ActivityAggregate::merge);
+    }
+
+    static boolean isRun(StravaActivity a) {
+        return "Run".equalsIgnoreCase(a.getType()) ||
+                (a.getSportType() != null && a.getSportType().toLowerCase().contains("run"));
+    }
+
+    static String typeKey(StravaActivity a) {
+        return a.getSportType() != null ? a.getSportType() : a.getType();
+    }
+
+    public boolean hasMileRun() {
+        return fastestMilePace != Double.POSITIVE_INFINITY;
+    }
+
+    public boolean has10KRun() {
+        return fastest10KSeconds != Integer.MAX_VALUE;
+    }
+
+    void add(StravaActivity a) {
+        int movingTime = a.getMovingTime() != null ? a.getMovingTime() : 0;
+        double distance = a.getDistance() != null ? a.getDistance() : 0;
+        LocalDate day = a.getStartDateLocal().toLocalDate();
+        String type = typeKey(a);
+
+        activityCount++;
+        totalMovingTime += movingTime;
+        countByType.merge(type, 1L, Long::sum);
+        movingTimeByType.merge(type, movingTime, Integer::sum);
+        dailyHours.merge(day, movingTime / 3600.0, Double::sum);
+
+        if (!isRun(a)) {
+            return;
+        }
+        double miles = distance * METERS_TO_MILES;
+        totalRuns++;
+        runMiles += miles;
+        runSeconds += movingTime;
+        longestRunMiles = Math.max(longestRunMiles, miles);
+        mostElevationFeet = Math.max(mostElevationFeet,
+                (a.getTotalElevationGain() != null ? a.getTotalElevationGain() : 0) * METERS_TO_FEET);
+        if (distance >= 10000) {
+            runs10KPlus++;
+            fastest10KSeconds = Math.min(fastest10KSeconds, movingTime);
+        }
+        if (distance >= 1609.34) {
+            fastestMilePace = Math.min(fastestMilePace, movingTime / miles);
+        }
+        runDailyMiles.merge(day, miles, Double::sum);
+        runDailySeconds.merge(day, (double) movingTime, Double::sum);
+    }
+
+    ActivityAggregate merge(ActivityAggregate other) {
+        activityCount += other.activityCount;
+        totalMovingTime += other.totalMovingTime;
+        other.countByType.forEach((k, v) -> countByType.merge(k, v, Long::sum));
+        other.movingTimeByType.forEach((k, v) -> movingTimeByType.merge(k, v, Integer::sum));
+        other.dailyHours.forEach((k, v) -> dailyHours.merge(k, v, Double::sum));
+
+        totalRuns += other.totalRuns;
+        runs10KPlus += other.runs10KPlus;
+        runMiles += other.runMiles;
+        runSeconds += other.runSeconds;
+        fastestMilePace = Math.min(fastestMilePace, other.fastestMilePace);
+        fastest10KSeconds = Math.min(fastest10KSeconds, other.fastest10KSeconds);
+        longestRunMiles = Math.max(longestRunMiles, other.longestRunMiles);
+        mostElevationFeet = Math.max(mostElevationFeet, other.mostElevationFeet);
+        other.runDailyMiles.forEach((k, v) -> runDailyMiles.merge(k, v, Double::sum));
+        other.runDailySeconds.forEach((k, v) -> runDailySeconds.merge(k, v, Double::sum));
+        return this;
+    }
+
+    private static final class AggregationTask extends RecursiveTask<ActivityAggregate> {
+        private final List<StravaActivity> activities;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private AggregationTask(List<StravaActivity> activities, int from, int to, int chunkSize) {
+            this.activities = activities;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected ActivityAggregate compute() {
+            if (to - from <= chunkSize) {
+                return of(activities.subList(from, to));
+            }
+            int mid = (from + to) >>> 1;
+            AggregationTask left = new AggregationTask(activities, from, mid, chunkSize);
+            left.fork();
+            ActivityAggregate right = new AggregationTask(activities, mid, to, chunkSize).compute();
+            return left.join().merge(right);
+        }
+    }
+}
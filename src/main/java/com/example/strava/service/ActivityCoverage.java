@@ -0,0 +1,232 @@
+package com.example.strava.service;
+
+import com.example.strava.model.StravaActivity;
+import com.example.strava.store.ActivitySnapshot;
+import com.example.strava.store.ActivityStore;
+import com.example.strava.store.CoveredRange;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Date-range bookkeeping for an athlete's stored history, which accumulates every range fetched for them.
+ * <p>
+ * A request is answered from the history when its coverage spans the whole range; otherwise only the
+ * uncovered gaps need fetching. Fetched ranges replace whatever the history held for those dates, so
+ * activities deleted on Strava drop out too. Sealed ranges, written by a bulk import, are the exception:
+ * they never go stale and only another import replaces them.
+ * <p>
+ * Public so the bulk-import module can merge an export archive into the same history.
+ */
+public final class ActivityCoverage {
+
+    static final int MAX_RANGES = 64;
+
+    static final Comparator<StravaActivity> NEWEST_FIRST =
+            Comparator.comparing(StravaActivity::getStartDateLocal).reversed();
+
+    /**
+     * A request's view of the history: the in-range activities held, the dates still missing, the dates a
+     * refresh has to fetch (all but the sealed ones) and when the oldest unsealed range contributing to the
+     * view was fetched (null when only sealed ranges, or nothing, were covered).
+     */
+    record Lookup(List<StravaActivity> activities, List<DateSpan> gaps, List<DateSpan> unsealed,
+                  Instant oldestFetchedAt) {
+
+        boolean complete() {
+            return gaps.isEmpty();
+        }
+    }
+
+    record DateSpan(LocalDate start, LocalDate end) {
+    }
+
+    private ActivityCoverage() {
+    }
+
+    // One history per athlete, holding every date range fetched for them
+    public static String historyKey(String principalName) {
+        return principalName;
+    }
+
+    static LocalDate start(LocalDate after) {
+        return after != null ? after : LocalDate.MIN;
+    }
+
+    /**
+     * Last day a request covers. Open and future ends stop a day past {@code today}, since athletes ahead
+     * of the server's zone may already have activities dated tomorrow; later days are fetched as gaps.
+     */
+    static LocalDate end(LocalDate before, LocalDate today) {
+        LocalDate horizon = today.plusDays(1);
+        return before != null && before.isBefore(horizon) ? before : horizon;
+    }
+
+    static Lookup lookup(ActivitySnapshot history, LocalDate from, LocalDate to) {
+        List<CoveredRange> ranges = history != null ? sorted(history.getCoverage()) : List.of();
+        List<CoveredRange> sealed = ranges.stream().filter(CoveredRange::sealed).toList();
+        boolean covered = false;
+        Instant oldest = null;
+        for (CoveredRange range : ranges) {
+            if (range.end().isBefore(from) || range.start().isAfter(to)) {
+                continue;
+            }
+            covered = true;
+            if (!range.sealed()) {
+                oldest = oldest == null || range.fetchedAt().isBefore(oldest) ? range.fetchedAt() : oldest;
+            }
+        }
+
+        List<StravaActivity> activities = !covered ? List.of() : history.getActivities().stream()
+                .filter(activity -> inSpan(activity, from, to))
+                .toList();
+        return new Lookup(activities, uncovered(ranges, from, to), uncovered(sealed, from, to), oldest);
+    }
+
+    /**
+     * Activities outside every one of {@code spans}.
+     */
+    static List<StravaActivity> outside(List<StravaActivity> activities, List<DateSpan> spans) {
+        return activities.stream()
+                .filter(activity -> spans.stream().noneMatch(span -> inSpan(activity, span.start(), span.end())))
+                .toList();
+    }
+
+    /**
+     * The history with {@code from..to} replaced by {@code fetched}, leaving any sealed dates as they were.
+     */
+    public static ActivitySnapshot merge(ActivitySnapshot history, LocalDate from, LocalDate to,
+                                         List<StravaActivity> fetched, Instant fetchedAt) {
+        return merge(history, from, to, fetched, fetchedAt, false);
+    }
+
+    /**
+     * The history with {@code from..to} replaced by {@code fetched}. A sealed merge replaces sealed dates too
+     * and seals {@code from..to}; an unsealed one only replaces the dates no sealed range covers.
+     */
+    public static ActivitySnapshot merge(ActivitySnapshot history, LocalDate from, LocalDate to,
+                                         List<StravaActivity> fetched, Instant fetchedAt, boolean sealed) {
+        List<CoveredRange> held = history != null ? sorted(history.getCoverage()) : List.of();
+        List<DateSpan> replaced = sealed
+                ? List.of(new DateSpan(from, to))
+                : uncovered(held.stream().filter(CoveredRange::sealed).toList(), from, to);
+
+        List<StravaActivity> activities = new ArrayList<>();
+        for (DateSpan span : replaced) {
+            fetched.stream().filter(activity -> inSpan(activity, span.start(), span.end())).forEach(activities::add);
+        }
+        List<CoveredRange> coverage = new ArrayList<>();
+        if (history != null) {
+            activities.addAll(outside(history.getActivities(), replaced));
+            for (CoveredRange range : held) {
+                coverage.addAll(subtract(range, replaced));
+            }
+        }
+        for (DateSpan span : replaced) {
+            coverage.add(new CoveredRange(span.start(), span.end(), fetchedAt, sealed));
+        }
+        coverage = bounded(sorted(coverage), activities);
+        activities.sort(NEWEST_FIRST);
+        return new ActivitySnapshot(activities, fetchedAt, coverage);
+    }
+
+    /**
+     * Retention for a history: none of its own while it holds a sealed range, {@code retention} otherwise.
+     */
+    public static Duration retention(ActivitySnapshot history, Duration retention) {
+        return history.getCoverage().stream().anyMatch(CoveredRange::sealed)
+                ? ActivityStore.RETAIN_INDEFINITELY
+                : retention;
+    }
+
+    /**
+     * Dates of {@code from..to} outside every one of the sorted, disjoint {@code ranges}.
+     */
+    private static List<DateSpan> uncovered(List<CoveredRange> ranges, LocalDate from, LocalDate to) {
+        List<DateSpan> gaps = new ArrayList<>();
+        LocalDate cursor = from;
+        for (CoveredRange range : ranges) {
+            if (range.end().isBefore(cursor) || range.start().isAfter(to)) {
+                continue;
+            }
+            if (range.start().isAfter(cursor)) {
+                gaps.add(new DateSpan(cursor, range.start().minusDays(1)));
+            }
+            cursor = range.end().plusDays(1);
+            if (cursor.isAfter(to)) {
+                return gaps;
+            }
+        }
+        gaps.add(new DateSpan(cursor, to));
+        return gaps;
+    }
+
+    /**
+     * The parts of {@code range} outside every one of the sorted, disjoint {@code spans}.
+     */
+    private static List<CoveredRange> subtract(CoveredRange range, List<DateSpan> spans) {
+        List<CoveredRange> parts = new ArrayList<>();
+        LocalDate cursor = range.start();
+        for (DateSpan span : spans) {
+            if (span.end().isBefore(cursor) || span.start().isAfter(range.end())) {
+                continue;
+            }
+            if (span.start().isAfter(cursor)) {
+                parts.add(new CoveredRange(cursor, span.start().minusDays(1), range.fetchedAt(), range.sealed()));
+            }
+            cursor = span.end().plusDays(1);
+            if (cursor.isAfter(range.end())) {
+                return parts;
+            }
+        }
+        parts.add(new CoveredRange(cursor, range.end(), range.fetchedAt(), range.sealed()));
+        return parts;
+    }
+
+    /**
+     * Joins touching ranges that are both sealed or both not (keeping the older fetch time) and then forgets
+     * the oldest unsealed ranges, with their activities, until at most {@link #MAX_RANGES} remain.
+     */
+    private static List<CoveredRange> bounded(List<CoveredRange> ranges, List<StravaActivity> activities) {
+        if (ranges.size() <= MAX_RANGES) {
+            return ranges;
+        }
+        List<CoveredRange> joined = new ArrayList<>();
+        for (CoveredRange range : ranges) {
+            CoveredRange last = joined.isEmpty() ? null : joined.get(joined.size() - 1);
+            if (last != null && last.end().plusDays(1).equals(range.start()) && last.sealed() == range.sealed()) {
+                Instant fetchedAt = last.fetchedAt().isBefore(range.fetchedAt()) ? last.fetchedAt() : range.fetchedAt();
+                joined.set(joined.size() - 1, new CoveredRange(last.start(), range.end(), fetchedAt, range.sealed()));
+            } else {
+                joined.add(range);
+            }
+        }
+        while (joined.size() > MAX_RANGES) {
+            CoveredRange oldest = joined.stream()
+                    .filter(range -> !range.sealed())
+                    .min(Comparator.comparing(CoveredRange::fetchedAt))
+                    .orElse(null);
+            if (oldest == null) {
+                break; // Only sealed ranges left, which are never forgotten
+            }
+            joined.remove(oldest);
+            activities.removeIf(activity -> inSpan(activity, oldest.start(), oldest.end()));
+        }
+        return joined;
+    }
+
+    private static List<CoveredRange> sorted(List<CoveredRange> ranges) {
+        List<CoveredRange> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparing(CoveredRange::start));
+        return sorted;
+    }
+
+    private static boolean inSpan(StravaActivity activity, LocalDate from, LocalDate to) {
+        LocalDate day = activity.getStartDateLocal().toLocalDate();
+        return !day.isBefore(from) && !day.isAfter(to);
+    }
+}
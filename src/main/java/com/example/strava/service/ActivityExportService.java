@@ -0,0 +1,273 @@
+package com.example.strava.service;
+
+import com.example.strava.model.StravaActivity;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjuster;
+import java.time.temporal.TemporalAdjusters;
+import java.time.temporal.WeekFields;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * CSV and NDJSON exports that write rows as upstream pages arrive.
+ * <p>
+ * Only one page of activities (at most 200) is held at a time, and the next page is not requested until the
+ * previous one has been written and flushed, so a slow client slows the upstream walk instead of buffering.
+ * Aggregate exports keep only the periods that later pages could still add to: activities arrive newest
+ * first, so a period is complete once the walk is more than a day past its start.
+ */
+@Service
+public class ActivityExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityExportService.class);
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromParam(String param) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(param)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export format: " + param);
+        }
+    }
+
+    private static final String[] ACTIVITY_COLUMNS = {
+            "id", "name", "sport_type", "type", "start_date", "start_date_local", "distance", "moving_time",
+            "elapsed_time", "total_elevation_gain", "average_speed", "max_speed"
+    };
+    private static final String[] AGGREGATE_COLUMNS = {
+            "period", "activities", "distance", "moving_time", "elapsed_time", "total_elevation_gain"
+    };
+
+    private final StravaApiService stravaApiService;
+    private final ObjectMapper objectMapper;
+
+    public ActivityExportService(StravaApiService stravaApiService, ObjectMapper objectMapper) {
+        this.stravaApiService = stravaApiService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * One row per activity, newest first, in Strava units (meters, seconds, meters per second).
+     * The first page is fetched before returning so authorization and upstream failures still map to an
+     * error status; later failures can only abort the already-started response.
+     */
+    public StreamingResponseBody exportActivities(String principalName, LocalDate after, LocalDate before, Format format) {
+        StravaApiService.ActivityCursor cursor = stravaApiService.openCursor(principalName, after, before);
+        List<StravaActivity> first = cursor.nextPage();
+
+        return out -> {
+            RowWriter rows = rowWriter(format, out, ACTIVITY_COLUMNS);
+            int count = 0;
+            for (List<StravaActivity> page = first; !page.isEmpty(); page = cursor.nextPage()) {
+                for (StravaActivity activity : page) {
+                    rows.write(activityRow(activity));
+                }
+                rows.flush();
+                count += page.size();
+            }
+            logger.debug("Exported {} activities as {} for athlete {}", count, format, principalName);
+        };
+    }
+
+    /**
+     * One row per {@code daily}, {@code weekly} or {@code monthly} period that has activities, newest first.
+     */
+    public StreamingResponseBody exportAggregates(String principalName, LocalDate after, LocalDate before,
+                                                  String period, Format format) {
+        Function<LocalDate, String> label = StravaStatsService.periodLabel(period);
+        if (label == null) {
+            throw new IllegalArgumentException("Unknown period: " + period);
+        }
+        TemporalAdjuster periodStart = periodStart(period);
+        StravaApiService.ActivityCursor cursor = stravaApiService.openCursor(principalName, after, before);
+        List<StravaActivity> first = cursor.nextPage();
+
+        return out -> {
+            RowWriter rows = rowWriter(format, out, AGGREGATE_COLUMNS);
+            // period start -> activities, distance, moving time, elapsed time, elevation; newest period first
+            TreeMap<LocalDate, double[]> open = new TreeMap<>(Comparator.reverseOrder());
+            for (List<StravaActivity> page = first; !page.isEmpty(); page = cursor.nextPage()) {
+                LocalDate oldestSeen = null;
+                for (StravaActivity activity : page) {
+                    LocalDate day = activity.getStartDateLocal().toLocalDate();
+                    double[] totals = open.computeIfAbsent(day.with(periodStart), k -> new double[5]);
+                    totals[0]++;
+                    totals[1] += activity.getDistance() != null ? activity.getDistance() : 0;
+                    totals[2] += activity.getMovingTime() != null ? activity.getMovingTime() : 0;
+                    totals[3] += activity.getElapsedTime() != null ? activity.getElapsedTime() : 0;
+                    totals[4] += activity.getTotalElevationGain() != null ? activity.getTotalElevationGain() : 0;
+                    if (oldestSeen == null || day.isBefore(oldestSeen)) {
+                        oldestSeen = day;
+                    }
+                }
+                // The upstream cursor works in UTC, so allow a day of overlap before treating a period as closed
+                LocalDate closedAfter = oldestSeen.plusDays(1);
+                writeAggregates(rows, open.headMap(closedAfter, false), label);
+                rows.flush();
+            }
+            writeAggregates(rows, open, label);
+            rows.flush();
+        };
+    }
+
+    private static void writeAggregates(RowWriter rows, Map<LocalDate, double[]> periods,
+                                        Function<LocalDate, String> label) throws IOException {
+        Iterator<Map.Entry<LocalDate, double[]>> it = periods.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<LocalDate, double[]> entry = it.next();
+            double[] totals = entry.getValue();
+            rows.write(new Object[]{label.apply(entry.getKey()), (long) totals[0], totals[1],
+                    (long) totals[2], (long) totals[3], totals[4]});
+            it.remove();
+        }
+    }
+
+    private static TemporalAdjuster periodStart(String period) {
+        return switch (period.toLowerCase()) {
+            case "weekly" -> date -> date.with(WeekFields.of(Locale.getDefault()).dayOfWeek(), 1);
+            case "monthly" -> TemporalAdjusters.firstDayOfMonth();
+            default -> date -> date;
+        };
+    }
+
+    private static Object[] activityRow(StravaActivity a) {
+        return new Object[]{a.getId(), a.getName(), a.getSportType(), a.getType(), timestamp(a.getStartDate()),
+                timestamp(a.getStartDateLocal()), a.getDistance(), a.getMovingTime(), a.getElapsedTime(),
+                a.getTotalElevationGain(), a.getAverageSpeed(), a.getMaxSpeed()};
+    }
+
+    private static String timestamp(ZonedDateTime time) {
+        return time != null ? time.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME) : null;
+    }
+
+    private RowWriter rowWriter(Format format, OutputStream out, String[] columns) throws IOException {
+        return format == Format.CSV ? new CsvRowWriter(out, columns) : new NdjsonRowWriter(objectMapper, out, columns);
+    }
+
+    private interface RowWriter {
+        void write(Object[] values) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out, String[] columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            write(columns);
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeField(values[i] instanceof String text ? escapeFormula(text) : values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        // Spreadsheets evaluate cells starting like a formula, so text such as an activity name gets a leading
+        // quote; numbers are left alone so negative values stay numeric
+        private static String escapeFormula(String value) {
+            if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+                return "'" + value;
+            }
+            return value;
+        }
+
+        // RFC 4180: quote fields containing separators, quotes or line breaks, doubling embedded quotes
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final String[] columns;
+
+        private NdjsonRowWriter(ObjectMapper objectMapper, OutputStream out, String[] columns) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                generator.writeFieldName(columns[i]);
+                generator.writeObject(values[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+}
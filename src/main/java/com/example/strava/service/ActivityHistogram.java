@@ -0,0 +1,163 @@
+package com.example.strava.service;
+
+import com.example.strava.model.RunDistributionDto;
+import com.example.strava.model.StravaActivity;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-width histogram over one activity metric, computed in a single pass into a {@code long[]} of bins.
+ * <p>
+ * Labels are built once per bin rather than per activity, and values that do not fit are counted in an
+ * optional overflow bin instead of being dropped silently.
+ */
+public final class ActivityHistogram {
+
+    public enum Metric {
+        DISTANCE, DURATION, ELEVATION, PACE
+    }
+
+    public enum Unit {
+        MI("mi", Metric.DISTANCE, ActivityAggregate.METERS_TO_MILES),
+        KM("km", Metric.DISTANCE, 0.001),
+        MIN("min", Metric.DURATION, 1 / 60.0),
+        H("h", Metric.DURATION, 1 / 3600.0),
+        FT("ft", Metric.ELEVATION, ActivityAggregate.METERS_TO_FEET),
+        M("m", Metric.ELEVATION, 1),
+        MIN_PER_MI("min/mi", Metric.PACE, ActivityAggregate.METERS_TO_MILES),
+        MIN_PER_KM("min/km", Metric.PACE, 0.001);
+
+        private final String param;
+        private final Metric metric;
+        private final double factor; // meters, seconds or meters-of-distance to this unit
+
+        Unit(String param, Metric metric, double factor) {
+            this.param = param;
+            this.metric = metric;
+            this.factor = factor;
+        }
+
+        static Unit defaultFor(Metric metric) {
+            return switch (metric) {
+                case DISTANCE -> MI;
+                case DURATION -> MIN;
+                case ELEVATION -> FT;
+                case PACE -> MIN_PER_MI;
+            };
+        }
+    }
+
+    /**
+     * What to count: {@code sportType} null means runs (the original run-distribution behaviour),
+     * {@code "all"} means every activity, anything else an exact sport or activity type.
+     */
+    public record Spec(Metric metric, Unit unit, double binWidth, int bins, boolean overflow, String sportType) {
+
+        static final int MAX_BINS = 1000;
+
+        /** Ten one-mile run bins, "0-1" through "9-10", longer runs ignored. */
+        public static final Spec RUN_MILES = new Spec(Metric.DISTANCE, Unit.MI, 1, 10, false, null);
+
+        public Spec {
+            if (unit.metric != metric) {
+                throw new IllegalArgumentException("Unit " + unit.param + " does not apply to " + metric.name().toLowerCase());
+            }
+            if (!(binWidth > 0) || Double.isInfinite(binWidth)) {
+                throw new IllegalArgumentException("Bin width must be positive: " + binWidth);
+            }
+            if (bins < 1 || bins > MAX_BINS) {
+                throw new IllegalArgumentException("Bins must be between 1 and " + MAX_BINS + ": " + bins);
+            }
+        }
+
+        public static Spec of(String metric, String unit, double binWidth, int bins, boolean overflow, String sportType) {
+            Metric parsedMetric = parseMetric(metric);
+            return new Spec(parsedMetric, unit == null ? Unit.defaultFor(parsedMetric) : parseUnit(unit),
+                    binWidth, bins, overflow, sportType);
+        }
+
+        private static Metric parseMetric(String metric) {
+            for (Metric candidate : Metric.values()) {
+                if (candidate.name().equalsIgnoreCase(metric)) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Unknown histogram metric: " + metric);
+        }
+
+        private static Unit parseUnit(String unit) {
+            for (Unit candidate : Unit.values()) {
+                if (candidate.param.equalsIgnoreCase(unit)) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Unknown histogram unit: " + unit);
+        }
+    }
+
+    private ActivityHistogram() {
+    }
+
+    public static List<RunDistributionDto> compute(List<StravaActivity> activities, Spec spec) {
+        long[] counts = new long[spec.bins() + 1]; // last slot is the overflow bin
+        for (StravaActivity activity : activities) {
+            if (!matchesSport(activity, spec.sportType())) {
+                continue;
+            }
+            double value = value(activity, spec.unit());
+            if (!(value >= 0)) {
+                continue; // missing (NaN) or invalid
+            }
+            counts[(int) Math.min(value / spec.binWidth(), spec.bins())]++;
+        }
+
+        List<RunDistributionDto> histogram = new ArrayList<>(counts.length);
+        BigDecimal width = BigDecimal.valueOf(spec.binWidth());
+        for (int bin = 0; bin < spec.bins(); bin++) {
+            histogram.add(new RunDistributionDto(boundary(width, bin) + "-" + boundary(width, bin + 1), counts[bin]));
+        }
+        if (spec.overflow()) {
+            histogram.add(new RunDistributionDto(boundary(width, spec.bins()) + "+", counts[spec.bins()]));
+        }
+        return histogram;
+    }
+
+    private static double value(StravaActivity a, Unit unit) {
+        return switch (unit.metric) {
+            case DISTANCE -> a.getDistance() != null ? a.getDistance() * unit.factor : Double.NaN;
+            case DURATION -> a.getMovingTime() != null ? a.getMovingTime() * unit.factor : Double.NaN;
+            case ELEVATION -> a.getTotalElevationGain() != null ? a.getTotalElevationGain() * unit.factor : Double.NaN;
+            case PACE -> a.getDistance() != null && a.getDistance() > 0 && a.getMovingTime() != null
+                    ? (a.getMovingTime() / 60.0) / (a.getDistance() * unit.factor)
+                    : Double.NaN;
+        };
+    }
+
+    private static boolean matchesSport(StravaActivity a, String sportType) {
+        if (sportType == null) {
+            return "Run".equalsIgnoreCase(a.getType()) || containsRun(a.getSportType());
+        }
+        return "all".equalsIgnoreCase(sportType)
+                || sportType.equalsIgnoreCase(a.getSportType())
+                || (a.getSportType() == null && sportType.equalsIgnoreCase(a.getType()));
+    }
+
+    // Same as sportType.toLowerCase().contains("run") without allocating a lowercase copy
+    private static boolean containsRun(String sportType) {
+        if (sportType == null) {
+            return false;
+        }
+        for (int i = 0; i + 3 <= sportType.length(); i++) {
+            if (sportType.regionMatches(true, i, "run", 0, 3)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String boundary(BigDecimal width, int bin) {
+        return width.multiply(BigDecimal.valueOf(bin)).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.strava.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encoded {@link ActivityStreams} by activity id. Streams never change once recorded, so entries have no
+ * TTL; the least recently used are evicted once the encoded bytes exceed the budget.
+ */
+@Component
+public class ActivityStreamCache {
+
+    private final Map<Long, ActivityStreams> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final long maxBytes;
+    private long bytes;
+
+    public ActivityStreamCache(@Value("${strava.streams.cache-max-size:64MB}") DataSize maxSize) {
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    public synchronized ActivityStreams get(long activityId) {
+        return entries.get(activityId);
+    }
+
+    public synchronized void put(long activityId, ActivityStreams streams) {
+        ActivityStreams previous = entries.put(activityId, streams);
+        if (previous != null) {
+            bytes -= previous.sizeInBytes();
+        }
+        bytes += streams.sizeInBytes();
+
+        Iterator<ActivityStreams> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().sizeInBytes();
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.strava.service;
+
+import com.example.strava.exception.ServiceOverloadedException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Bounds how many requests may paginate Strava at once, with a limit that follows upstream latency.
+ * <p>
+ * The limit is a gradient controller in the style of Netflix's Gradient2: per-page latency is compared with
+ * its long-run average, so when Strava slows down the ratio drops below one and the limit shrinks, and
+ * when latency recovers it grows back by a small queue allowance per sample. Partial fetches and upstream
+ * failures (network errors, timeouts, 5xx and 429 responses) cut the limit multiplicatively; anything else,
+ * such as a missing authorization or one athlete's open circuit, releases the permit without a sample.
+ * Requests over the limit are rejected at once rather than parked on a servlet thread.
+ * <p>
+ * Only upstream fetches take a permit: requests answered from the activity store never wait or get shed,
+ * so cheap requests keep flowing while expensive ones back off.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double TOLERANCE = 1.5; // latency may rise this much before the limit shrinks
+    private static final double BACKOFF = 0.9;
+    private static final double LONG_WINDOW = 600; // samples in the long-run latency average
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Counter rejected;
+
+    private int inFlight;
+    private double limit;
+    private double longRttNanos; // per page
+    private double requestNanos; // whole fetch, for Retry-After
+
+    public AdaptiveConcurrencyLimiter(
+            @Value("${strava.limiter.enabled:true}") boolean enabled,
+            @Value("${strava.limiter.initial-limit:20}") int initialLimit,
+            @Value("${strava.limiter.min-limit:2}") int minLimit,
+            @Value("${strava.limiter.max-limit:200}") int maxLimit,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        Gauge.builder("strava.limiter.limit", this, l -> l.getLimit()).register(meterRegistry);
+        Gauge.builder("strava.limiter.in-flight", this, l -> l.getInFlight()).register(meterRegistry);
+        this.rejected = Counter.builder("strava.limiter.rejected").register(meterRegistry);
+    }
+
+    /**
+     * @throws ServiceOverloadedException when the limit is reached
+     */
+    public Permit acquire() {
+        if (!enabled) {
+            return new Permit(false);
+        }
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                rejected.increment();
+                throw new ServiceOverloadedException(
+                        "Upstream concurrency limit " + (int) limit + " reached", retryAfter());
+            }
+            inFlight++;
+        }
+        return new Permit(true);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Whether {@code error} says Strava is struggling, as opposed to a problem with this request or athlete.
+     */
+    static boolean isUpstreamFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebClientResponseException response) {
+                return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+            }
+            if (cause instanceof CallNotPermittedException) {
+                return false;
+            }
+            if (cause instanceof WebClientException || cause instanceof TimeoutException
+                    || cause instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void release() {
+        inFlight--;
+    }
+
+    private synchronized void onComplete(long elapsedNanos, int pages, boolean dropped, int inFlightAtStart) {
+        inFlight--;
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            return;
+        }
+        requestNanos = requestNanos == 0 ? elapsedNanos : requestNanos * (1 - SMOOTHING) + elapsedNanos * SMOOTHING;
+        if (pages == 0) {
+            return;
+        }
+
+        double rtt = (double) elapsedNanos / pages;
+        if (longRttNanos == 0) {
+            longRttNanos = rtt;
+        } else {
+            longRttNanos += (rtt - longRttNanos) / LONG_WINDOW;
+            if (longRttNanos / rtt > 2) {
+                longRttNanos *= 0.95; // Latency has dropped well below the average: let the baseline catch up
+            }
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / rtt));
+        double queueSize = Math.sqrt(limit);
+        double target = limit * gradient + queueSize;
+        if (target > limit && inFlightAtStart < limit / 2) {
+            return; // Not using the current limit, so latency says nothing about a higher one
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+
+    private Duration retryAfter() {
+        return Duration.ofNanos((long) Math.min(Duration.ofSeconds(30).toNanos(), Math.max(requestNanos, 1e9)));
+    }
+
+    /**
+     * One admitted fetch. Call {@link #completed} on success; run the upstream call through {@link #run} so
+     * its failures are told apart. Closing without either releases the permit without a sample.
+     */
+    public final class Permit implements AutoCloseable {
+        private final boolean counted;
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+        private int pages;
+        private boolean completed;
+        private boolean partial;
+        private boolean upstreamFailure;
+        private boolean released;
+
+        private Permit(boolean counted) {
+            this.counted = counted;
+            this.inFlightAtStart = counted ? getInFlight() : 0;
+        }
+
+        /**
+         * Runs {@code upstreamCall}, noting whether an exception it throws is an upstream failure.
+         */
+        public <T> T run(Supplier<T> upstreamCall) {
+            try {
+                return upstreamCall.get();
+            } catch (RuntimeException e) {
+                upstreamFailure = isUpstreamFailure(e);
+                throw e;
+            }
+        }
+
+        /**
+         * @param pages   upstream pages fetched, to normalize latency across history sizes
+         * @param partial upstream gave up part-way, which counts as a failure
+         */
+        public void completed(int pages, boolean partial) {
+            this.pages = pages;
+            this.partial = partial;
+            this.completed = true;
+        }
+
+        @Override
+        public void close() {
+            if (counted && !released) {
+                released = true;
+                if (completed || upstreamFailure) {
+                    onComplete(System.nanoTime() - startNanos, pages, partial || upstreamFailure, inFlightAtStart);
+                } else {
+                    release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.strava.service;
+
+import com.example.strava.model.ActivityFetchResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-athlete {@link ActivityAggregate}s for a date range, so team views merge ready-made partials
+ * instead of re-aggregating every member's raw activities on each request.
+ */
+@Component
+public class AthleteAggregateCache {
+
+    /**
+     * An athlete's aggregate; {@code partial} when upstream gave up part-way and {@code stale} when built from
+     * an old snapshot being refreshed (neither is cached). {@code fetchedAt} is when the activities were read
+     * from Strava.
+     */
+    public record Result(ActivityAggregate aggregate, boolean partial, boolean stale, Instant fetchedAt) {
+    }
+
+    private record Entry(ActivityAggregate aggregate, Instant fetchedAt, Instant createdAt) {
+    }
+
+    private final StravaApiService stravaApiService;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final int maxEntries;
+
+    public AthleteAggregateCache(
+            StravaApiService stravaApiService,
+            @Value("${strava.teams-cache.ttl:5m}") Duration ttl,
+            @Value("${strava.teams-cache.max-entries:2000}") int maxEntries) {
+        this.stravaApiService = stravaApiService;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    public Result get(String athleteId, LocalDate after, LocalDate before) {
+        String key = athleteId + '|' + after + '|' + before;
+        Entry entry = entries.get(key);
+        if (entry != null && !isExpired(entry, Instant.now())) {
+            return new Result(entry.aggregate(), false, false, entry.fetchedAt());
+        }
+
+        ActivityFetchResult fetched = stravaApiService.getAllActivities(athleteId, after, before);
+        ActivityAggregate aggregate = ActivityAggregate.of(fetched.getActivities());
+        if (!fetched.isPartial() && !fetched.isStale()) {
+            put(key, aggregate, fetched.getFetchedAt());
+        }
+        return new Result(aggregate, fetched.isPartial(), fetched.isStale(), fetched.getFetchedAt());
+    }
+
+    private void put(String key, ActivityAggregate aggregate, Instant fetchedAt) {
+        if (entries.size() >= maxEntries) {
+            Instant now = Instant.now();
+            entries.values().removeIf(e -> isExpired(e, now));
+            if (entries.size() >= maxEntries) {
+                return; // Still full: recompute next time rather than grow without bound
+            }
+        }
+        entries.put(key, new Entry(aggregate, fetchedAt, Instant.now()));
+    }
+
+    private boolean isExpired(Entry entry, Instant now) {
+        return entry.createdAt().plus(ttl).isBefore(now);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.strava.service;
+
+import com.example.strava.diagnostics.ResilienceFallbackEvent;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One circuit breaker per athlete, configured like the {@code stravaApi} instance, so a bad token only trips
+ * its owner's breaker. Breakers are kept out of the shared registry to avoid publishing per-athlete metrics.
+ * <p>
+ * A breaker unused for {@code idle-expiry} is dropped; by then any open state has long run out, so the next
+ * call starts from a fresh closed breaker as it would have anyway. Beyond {@code max-athletes}, the least
+ * recently used breakers are dropped early. Listeners live on each breaker, so they go with it.
+ */
+@Component
+public class AthleteCircuitBreakers {
+
+    private static final String NAME_PREFIX = "stravaApi:";
+
+    private record Entry(CircuitBreaker breaker, AtomicLong lastUsedNanos) {
+    }
+
+    private final CircuitBreakerConfig config;
+    private final long idleExpiryNanos;
+    private final int maxAthletes;
+    private final Map<String, Entry> breakers = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos;
+
+    public AthleteCircuitBreakers(
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            @Value("${strava.circuit-breakers.idle-expiry:30m}") Duration idleExpiry,
+            @Value("${strava.circuit-breakers.max-athletes:10000}") int maxAthletes) {
+        this.config = circuitBreakerRegistry.circuitBreaker("stravaApi").getCircuitBreakerConfig();
+        this.idleExpiryNanos = idleExpiry.toNanos();
+        this.maxAthletes = Math.max(1, maxAthletes);
+        this.nextSweepNanos = new AtomicLong(System.nanoTime() + sweepIntervalNanos());
+    }
+
+    public CircuitBreaker forAthlete(String athlete) {
+        long now = System.nanoTime();
+        Entry entry = breakers.computeIfAbsent(athlete, this::create);
+        entry.lastUsedNanos().set(now);
+        long due = nextSweepNanos.get();
+        if ((now - due >= 0 || breakers.size() > maxAthletes)
+                && nextSweepNanos.compareAndSet(due, now + sweepIntervalNanos())) {
+            evict(now);
+        }
+        return entry.breaker();
+    }
+
+    int size() {
+        return breakers.size();
+    }
+
+    private Entry create(String athlete) {
+        CircuitBreaker breaker = CircuitBreaker.of(NAME_PREFIX + athlete, config);
+        breaker.getEventPublisher()
+                .onStateTransition(e -> ResilienceFallbackEvent.emit(athlete, "state-transition",
+                        e.getStateTransition().toString()))
+                .onCallNotPermitted(e -> ResilienceFallbackEvent.emit(athlete, "call-not-permitted",
+                        "circuit " + breaker.getState()));
+        return new Entry(breaker, new AtomicLong(System.nanoTime()));
+    }
+
+    private void evict(long now) {
+        breakers.values().removeIf(entry -> now - entry.lastUsedNanos().get() > idleExpiryNanos);
+        if (breakers.size() > maxAthletes) {
+            // Down to 90% so the next few new athletes do not each trigger another sort
+            int excess = breakers.size() - maxAthletes * 9 / 10;
+            breakers.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().lastUsedNanos().get()))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(breakers::remove);
+        }
+    }
+
+    private long sweepIntervalNanos() {
+        return Math.max(Duration.ofSeconds(1).toNanos(), idleExpiryNanos / 4);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.strava.service;
+
+import com.example.strava.model.ActivityFetchResult;
+import com.example.strava.model.BestEffortDto;
+import com.example.strava.model.StravaActivity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Best efforts over standard distances, computed from each run's time and distance streams rather than
+ * whole-run averages.
+ * <p>
+ * Streams are fetched once per activity and kept in the {@link ActivityStreamCache}. A cold history is
+ * filled in over several requests: each request fetches at most {@code max-fetches-per-request} missing
+ * streams, newest runs first, a few at a time, and stops early once Strava's reported usage eats into the
+ * reserve kept for dashboard requests. Until every run has streams, the result is marked partial.
+ */
+@Service
+public class BestEffortService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BestEffortService.class);
+
+    /**
+     * Best efforts found so far; {@code pendingActivities} runs still lack streams. {@code stale} and
+     * {@code fetchedAt} describe the activity list the runs were taken from.
+     */
+    public record BestEffortResult(List<BestEffortDto> efforts, int pendingActivities, boolean partial,
+                                   boolean stale, Instant fetchedAt) {
+    }
+
+    private final StravaApiService stravaApiService;
+    private final ActivityStreamCache streamCache;
+    private final StravaRateLimitTracker rateLimitTracker;
+    private final int maxConcurrent;
+    private final int maxFetchesPerRequest;
+    private final double reserveFraction;
+
+    public BestEffortService(
+            StravaApiService stravaApiService,
+            ActivityStreamCache streamCache,
+            StravaRateLimitTracker rateLimitTracker,
+            @Value("${strava.streams.max-concurrent:2}") int maxConcurrent,
+            @Value("${strava.streams.max-fetches-per-request:50}") int maxFetchesPerRequest,
+            @Value("${strava.streams.rate-limit-reserve:0.25}") double reserveFraction) {
+        this.stravaApiService = stravaApiService;
+        this.streamCache = streamCache;
+        this.rateLimitTracker = rateLimitTracker;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxFetchesPerRequest = maxFetchesPerRequest;
+        this.reserveFraction = reserveFraction;
+    }
+
+    public BestEffortResult getBestEfforts(String athleteId, LocalDate after, LocalDate before) {
+        ActivityFetchResult fetched = stravaApiService.getAllActivities(athleteId, after, before);
+        double shortest = BestEfforts.Distance.values()[0].getMeters();
+        List<StravaActivity> runs = fetched.getActivities().stream()
+                .filter(ActivityAggregate::isRun)
+                .filter(a -> a.getId() != null && a.getDistance() != null && a.getDistance() >= shortest)
+                .toList();
+
+        Map<Long, ActivityStreams> streams = new ConcurrentHashMap<>();
+        List<StravaActivity> missing = new ArrayList<>();
+        for (StravaActivity run : runs) {
+            ActivityStreams cached = streamCache.get(run.getId());
+            if (cached != null) {
+                streams.put(run.getId(), cached);
+            } else {
+                missing.add(run);
+            }
+        }
+        if (!missing.isEmpty()) {
+            fetchStreams(athleteId, missing.subList(0, Math.min(missing.size(), maxFetchesPerRequest)), streams);
+        }
+
+        BestEfforts.Distance[] distances = BestEfforts.Distance.values();
+        double[] best = new double[distances.length];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        StravaActivity[] bestRun = new StravaActivity[distances.length];
+        for (StravaActivity run : runs) {
+            ActivityStreams runStreams = streams.get(run.getId());
+            if (runStreams == null || runStreams.isEmpty()) {
+                continue;
+            }
+            double[] efforts = BestEfforts.compute(runStreams);
+            for (int i = 0; i < distances.length; i++) {
+                if (efforts[i] < best[i]) { // NaN never compares less
+                    best[i] = efforts[i];
+                    bestRun[i] = run;
+                }
+            }
+        }
+
+        List<BestEffortDto> results = new ArrayList<>();
+        for (BestEfforts.Distance distance : distances) {
+            StravaActivity run = bestRun[distance.ordinal()];
+            if (run != null) {
+                results.add(toDto(distance, best[distance.ordinal()], run));
+            }
+        }
+        int pending = (int) runs.stream().filter(run -> !streams.containsKey(run.getId())).count();
+        return new BestEffortResult(results, pending, fetched.isPartial() || pending > 0, fetched.isStale(),
+                fetched.getFetchedAt());
+    }
+
+    /**
+     * Fetches streams on virtual threads, at most {@code maxConcurrent} at a time, caching each as it arrives.
+     * Failures are logged and leave the run pending for a later request.
+     */
+    private void fetchStreams(String athleteId, List<StravaActivity> runs, Map<Long, ActivityStreams> streams) {
+        Semaphore permits = new Semaphore(maxConcurrent);
+        List<Future<?>> futures = new ArrayList<>(runs.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (StravaActivity run : runs) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        if (!rateLimitTracker.hasHeadroom(reserveFraction)) {
+                            return null; // Leave the rest of Strava's budget to interactive requests
+                        }
+                        ActivityStreams fetched = stravaApiService.getActivityStreams(athleteId, run.getId());
+                        streamCache.put(run.getId(), fetched);
+                        streams.put(run.getId(), fetched);
+                        return null;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.warn("Could not fetch streams for athlete {}: {}", athleteId, e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while fetching activity streams");
+        }
+    }
+
+    private static BestEffortDto toDto(BestEfforts.Distance distance, double seconds, StravaActivity run) {
+        long rounded = Math.round(seconds);
+        String time = rounded >= 3600
+                ? String.format("%d:%02d:%02d", rounded / 3600, (rounded % 3600) / 60, rounded % 60)
+                : String.format("%02d:%02d", rounded / 60, rounded % 60);
+        long pace = Math.round(seconds / (distance.getMeters() * ActivityAggregate.METERS_TO_MILES));
+        return new BestEffortDto(distance.getLabel(), distance.getMeters(), seconds, time,
+                String.format("%02d:%02d", pace / 60, pace % 60), run.getId(), run.getName(),
+                run.getStartDateLocal().toLocalDate().toString());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.strava.service;
+
+/**
+ * Fastest elapsed time over fixed distances within one activity's streams.
+ * <p>
+ * For each target a two-pointer window slides over the cumulative distance stream: the end advances one
+ * sample at a time and the start only ever moves forward, so each target costs O(n). The window's start is
+ * interpolated between samples so an effort covers exactly the target distance rather than the nearest
+ * sample boundary.
+ */
+public final class BestEfforts {
+
+    public enum Distance {
+        ONE_K("1K", 1000),
+        ONE_MILE("1 mile", 1609.344),
+        FIVE_K("5K", 5000),
+        TEN_K("10K", 10000),
+        HALF_MARATHON("Half marathon", 21097.5),
+        MARATHON("Marathon", 42195);
+
+        private final String label;
+        private final double meters;
+
+        Distance(String label, double meters) {
+            this.label = label;
+            this.meters = meters;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public double getMeters() {
+            return meters;
+        }
+    }
+
+    private BestEfforts() {
+    }
+
+    /**
+     * Best elapsed seconds per {@link Distance}, indexed by ordinal; {@code NaN} where the activity is shorter
+     * than the distance.
+     */
+    public static double[] compute(ActivityStreams streams) {
+        Distance[] distances = Distance.values();
+        double[] best = new double[distances.length];
+        long[] time = streams.timeSeconds();
+        long[] distance = streams.distanceCentimeters();
+        for (Distance target : distances) {
+            best[target.ordinal()] = fastest(time, distance, Math.round(target.meters * 100));
+        }
+        return best;
+    }
+
+    static double fastest(long[] time, long[] distance, long target) {
+        int n = distance.length;
+        if (n < 2 || distance[n - 1] - distance[0] < target) {
+            return Double.NaN;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        int start = 0;
+        for (int end = 1; end < n; end++) {
+            if (distance[end] - distance[0] < target) {
+                continue;
+            }
+            // Move the start up while the window would still cover the target from the next sample
+            while (distance[end] - distance[start + 1] >= target) {
+                start++;
+            }
+            // The exact start point lies between start and start + 1
+            double startDistance = distance[end] - target;
+            long segment = distance[start + 1] - distance[start];
+            double fraction = segment > 0 ? (startDistance - distance[start]) / segment : 0;
+            double startTime = time[start] + fraction * (time[start + 1] - time[start]);
+            best = Math.min(best, time[end] - startTime);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.strava.service;
+
+import com.example.strava.model.CompactHeatmapDto;
+import com.example.strava.model.StravaActivity;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Builds {@link CompactHeatmapDto}s by summing straight into an array indexed by epoch day, so a multi-year
+ * calendar needs no per-day map entries, DTOs or sort.
+ */
+final class CompactHeatmap {
+
+    static final int VALUE_SCALE = 100;
+    static final int BITS_PER_LEVEL = 3; // intensities run 0-4
+    static final int MAX_REQUESTED_DAYS = 30 * 366; // arrays are sized by the range, so a requested one is capped
+
+    private CompactHeatmap() {
+    }
+
+    /**
+     * Rejects a requested range that is already known to exceed {@link #MAX_REQUESTED_DAYS}, so it fails
+     * before the history is fetched. An open {@code before} ends today; an open {@code after} starts no later
+     * than today, and the rest of such a range is checked by {@link #encode} once the activities are known.
+     *
+     * @throws IllegalArgumentException when the range is too long
+     */
+    static void checkRequestedRange(LocalDate after, LocalDate before, LocalDate today) {
+        if (after == null && before == null) {
+            return;
+        }
+        LocalDate first = after != null ? after : before.isBefore(today) ? before : today;
+        LocalDate last = before != null ? before : today;
+        if (last.toEpochDay() - first.toEpochDay() + 1 > MAX_REQUESTED_DAYS) {
+            throw tooLong();
+        }
+    }
+
+    /**
+     * @param after      first day, or null for the earliest included activity
+     * @param before     last day, or null for the latest included activity
+     * @param thresholds intensity thresholds as in {@link StravaStatsService#calculateIntensity}
+     * @throws IllegalArgumentException when {@code after} or {@code before} stretches the range past
+     *                                  {@link #MAX_REQUESTED_DAYS}
+     */
+    static CompactHeatmapDto encode(List<StravaActivity> activities, Predicate<StravaActivity> include,
+                                    ToDoubleFunction<StravaActivity> value, LocalDate after, LocalDate before,
+                                    double... thresholds) {
+        long first = after != null ? after.toEpochDay() : Long.MAX_VALUE;
+        long last = before != null ? before.toEpochDay() : Long.MIN_VALUE;
+        if (after == null || before == null) {
+            for (StravaActivity activity : activities) {
+                if (include.test(activity)) {
+                    long day = epochDay(activity);
+                    first = after == null ? Math.min(first, day) : first;
+                    last = before == null ? Math.max(last, day) : last;
+                }
+            }
+        }
+        if (first > last) {
+            return new CompactHeatmapDto(null, 0, VALUE_SCALE, new int[0], BITS_PER_LEVEL, new byte[0]);
+        }
+
+        if ((after != null || before != null) && last - first + 1 > MAX_REQUESTED_DAYS) {
+            throw tooLong();
+        }
+        int days = Math.toIntExact(last - first + 1);
+        double[] totals = new double[days];
+        for (StravaActivity activity : activities) {
+            long index = epochDay(activity) - first;
+            if (index >= 0 && index < days && include.test(activity)) {
+                totals[(int) index] += value.applyAsDouble(activity);
+            }
+        }
+
+        int[] values = new int[days];
+        byte[] levels = new byte[(days * BITS_PER_LEVEL + 7) / 8];
+        for (int i = 0; i < days; i++) {
+            values[i] = (int) Math.round(totals[i] * VALUE_SCALE);
+            int level = StravaStatsService.calculateIntensity(totals[i], thresholds);
+            int bit = i * BITS_PER_LEVEL;
+            levels[bit >>> 3] |= (byte) (level << (bit & 7));
+            if ((bit & 7) + BITS_PER_LEVEL > 8) {
+                levels[(bit >>> 3) + 1] |= (byte) (level >>> (8 - (bit & 7)));
+            }
+        }
+        return new CompactHeatmapDto(LocalDate.ofEpochDay(first), days, VALUE_SCALE, values, BITS_PER_LEVEL, levels);
+    }
+
+    /**
+     * Intensity of day {@code index}, as a client would unpack it.
+     */
+    static int level(CompactHeatmapDto heatmap, int index) {
+        int bit = index * heatmap.getBitsPerLevel();
+        byte[] levels = heatmap.getLevels();
+        int word = levels[bit >>> 3] & 0xff;
+        if ((bit >>> 3) + 1 < levels.length) {
+            word |= (levels[(bit >>> 3) + 1] & 0xff) << 8;
+        }
+        return (word >>> (bit & 7)) & ((1 << heatmap.getBitsPerLevel()) - 1);
+    }
+
+    private static long epochDay(StravaActivity activity) {
+        return activity.getStartDateLocal().toLocalDate().toEpochDay();
+    }
+
+    private static IllegalArgumentException tooLong() {
+        return new IllegalArgumentException("Compact heatmaps cover at most " + MAX_REQUESTED_DAYS
+                + " days; narrow the after/before range");
+    }
+}
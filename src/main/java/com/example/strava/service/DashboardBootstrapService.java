@@ -0,0 +1,79 @@
+package com.example.strava.service;
+
+import com.example.strava.model.ActivityFetchResult;
+import com.example.strava.model.StravaActivity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputes the dashboard's default-range API responses while the page is rendered, so the first paint
+ * needs no extra round trips.
+ * <p>
+ * Responses are keyed by the exact URL the dashboard script would request. If the browser's default range
+ * differs (for example in another time zone), nothing matches and the script fetches as usual.
+ */
+@Service
+public class DashboardBootstrapService {
+
+    private final StravaApiService stravaApiService;
+    private final StravaStatsService stravaStatsService;
+    private final ObjectMapper objectMapper;
+    private final int defaultRangeDays;
+
+    public DashboardBootstrapService(
+            StravaApiService stravaApiService,
+            StravaStatsService stravaStatsService,
+            ObjectMapper objectMapper,
+            @Value("${strava.dashboard.bootstrap-days:7}") int defaultRangeDays) {
+        this.stravaApiService = stravaApiService;
+        this.stravaStatsService = stravaStatsService;
+        this.objectMapper = objectMapper;
+        this.defaultRangeDays = defaultRangeDays;
+    }
+
+    /**
+     * JSON of the form {@code {"partial": false, "responses": {"/api/stats/summary?after=...&before=...": {...}}}}.
+     */
+    public String bootstrapJson(String principalName) {
+        // Same inclusive range as the dashboard's "Last N Days" preset
+        LocalDate before = LocalDate.now();
+        LocalDate after = before.minusDays(Math.max(0, defaultRangeDays - 1));
+        ActivityFetchResult result = stravaApiService.getAllActivities(principalName, after, before);
+        List<StravaActivity> activities = result.getActivities();
+
+        String range = "?after=" + after + "&before=" + before;
+        Map<String, Object> responses = new LinkedHashMap<>();
+        responses.put("/api/stats/summary" + range, stravaStatsService.getSummaryStats(activities));
+        responses.put("/api/stats/activity-count" + range, stravaStatsService.getActivityCountDistribution(activities));
+        responses.put("/api/stats/time-distribution" + range, stravaStatsService.getTimeDistribution(activities));
+        responses.put("/api/stats/workout-heatmap" + range, stravaStatsService.getWorkoutHeatmapData(activities));
+        responses.put("/api/stats/workout-heatmap/summary" + range,
+                stravaStatsService.getWorkoutHeatmapSummary(activities, before, after));
+        responses.put("/api/stats/run-statistics" + range, stravaStatsService.getRunStatistics(activities));
+        responses.put("/api/stats/run-distribution" + range, stravaStatsService.getRunDistribution(activities));
+        responses.put("/api/stats/running-heatmap" + range, stravaStatsService.getRunningHeatmap(activities));
+        responses.put("/api/stats/mileage-trend" + range + "&period=daily", stravaStatsService.getMileageTrend(activities, "daily"));
+        responses.put("/api/stats/pace-trend" + range + "&period=daily", stravaStatsService.getPaceTrend(activities, "daily"));
+
+        Map<String, Object> bootstrap = new LinkedHashMap<>();
+        bootstrap.put("partial", result.isPartial());
+        bootstrap.put("stale", result.isStale());
+        bootstrap.put("ageSeconds", Duration.between(result.getFetchedAt(), Instant.now()).toSeconds());
+        bootstrap.put("responses", responses);
+        try {
+            return objectMapper.writeValueAsString(bootstrap);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.strava.service;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Runs upstream Strava calls on a fixed set of workers, taking work round-robin across athletes.
+ * <p>
+ * Each athlete has its own lane (a bulkhead): at most {@code per-athlete-max-concurrent} of its calls run
+ * at once and at most {@code per-athlete-max-queued} wait. An athlete paginating 50 pages therefore takes
+ * turns with everyone else instead of occupying every worker.
+ * <p>
+ * Activity pages run as non-blocking attempts timed by {@link PageFetchPolicy}, so they take no worker.
+ * They still go through the lanes with {@link #executeOnCaller}: the calling thread holds one of the
+ * athlete's slots for the whole page, retries and hedge included, and waits in the lane when none is free.
+ */
+@Component
+public class FairUpstreamScheduler implements DisposableBean {
+
+    /**
+     * A queued call. Whoever claims it first decides its fate: a worker runs it, a caller that gave up
+     * waiting withdraws it, so a task is never both timed out and running.
+     */
+    private static final class LaneTask<T> extends FutureTask<T> {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch pickedUp = new CountDownLatch(1);
+
+        private LaneTask(Callable<T> callable) {
+            super(callable);
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    private static final class AthleteLane {
+        private final String athleteKey;
+        private final ArrayDeque<LaneTask<?>> pending = new ArrayDeque<>();
+        private final Condition slotFreed;
+        private int inFlight;
+        private int waitingCallers; // executeOnCaller calls waiting for a slot
+        private boolean ready; // currently waiting in the round-robin queue
+
+        private AthleteLane(String athleteKey, Condition slotFreed) {
+            this.athleteKey = athleteKey;
+            this.slotFreed = slotFreed;
+        }
+
+        private boolean idle() {
+            return inFlight == 0 && pending.isEmpty() && waitingCallers == 0;
+        }
+    }
+
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Map<String, AthleteLane> lanes = new HashMap<>();
+    private final ArrayDeque<AthleteLane> readyLanes = new ArrayDeque<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final int perAthleteMaxConcurrent;
+    private final int perAthleteMaxQueued;
+    private final Duration maxWait;
+    private volatile boolean running = true;
+
+    public FairUpstreamScheduler(
+            @Value("${strava.scheduler.workers:16}") int workerCount,
+            @Value("${strava.scheduler.per-athlete-max-concurrent:2}") int perAthleteMaxConcurrent,
+            @Value("${strava.scheduler.per-athlete-max-queued:50}") int perAthleteMaxQueued,
+            @Value("${strava.scheduler.max-wait:30s}") Duration maxWait) {
+        this.perAthleteMaxConcurrent = perAthleteMaxConcurrent;
+        this.perAthleteMaxQueued = perAthleteMaxQueued;
+        this.maxWait = maxWait;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "strava-upstream-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Runs {@code task} in the athlete's lane and waits for its result. Runtime exceptions thrown by the
+     * task are rethrown as-is so retry and circuit breaker policies see the original failure.
+     * <p>
+     * {@code max-wait} bounds only the time spent queued. Once a worker has picked the task up the caller
+     * waits for it to finish; a running call is bounded by the HTTP client's own timeouts.
+     *
+     * @throws RejectedExecutionException if the athlete's lane is full or no worker picked the task up in time
+     */
+    public <T> T execute(String athleteKey, Callable<T> task) {
+        // Carry the caller's trace context onto the worker so upstream spans nest under the request
+        LaneTask<T> future = new LaneTask<>(CONTEXT_SNAPSHOTS.captureAll().wrap(task));
+        AthleteLane lane = enqueue(athleteKey, future);
+        try {
+            if (!future.pickedUp.await(maxWait.toMillis(), TimeUnit.MILLISECONDS) && future.claim()) {
+                withdraw(lane, future);
+                throw new RejectedExecutionException("Timed out waiting for an upstream slot for " + athleteKey);
+            }
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (future.claim()) {
+                withdraw(lane, future);
+            } else {
+                future.cancel(true);
+            }
+            throw new RejectedExecutionException("Interrupted waiting for an upstream call for " + athleteKey, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Runs {@code call} on the calling thread once the athlete's lane has a free slot, holding the slot until
+     * it returns. For calls that do their own waiting without blocking a worker; the slot counts against
+     * {@code per-athlete-max-concurrent} like a worker's, and a caller waiting for one counts against
+     * {@code per-athlete-max-queued}. {@code max-wait} bounds only the wait for the slot.
+     *
+     * @throws RejectedExecutionException if the athlete's lane is full or no slot came free in time
+     */
+    public <T> T executeOnCaller(String athleteKey, Supplier<T> call) {
+        AthleteLane lane = acquireSlot(athleteKey);
+        try {
+            return call.get();
+        } finally {
+            release(lane);
+        }
+    }
+
+    private AthleteLane acquireSlot(String athleteKey) {
+        lock.lock();
+        try {
+            AthleteLane lane = lane(athleteKey);
+            if (lane.inFlight < perAthleteMaxConcurrent) {
+                lane.inFlight++;
+                return lane;
+            }
+            if (lane.pending.size() + lane.waitingCallers >= perAthleteMaxQueued) {
+                throw new RejectedExecutionException("Too many queued upstream calls for " + athleteKey);
+            }
+            lane.waitingCallers++;
+            try {
+                long remainingNanos = maxWait.toNanos();
+                while (lane.inFlight >= perAthleteMaxConcurrent) {
+                    if (!running) {
+                        throw new RejectedExecutionException("Upstream scheduler is shut down");
+                    }
+                    if (remainingNanos <= 0) {
+                        throw new RejectedExecutionException("Timed out waiting for an upstream slot for " + athleteKey);
+                    }
+                    remainingNanos = lane.slotFreed.awaitNanos(remainingNanos);
+                }
+                lane.inFlight++;
+                return lane;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted waiting for an upstream slot for " + athleteKey, e);
+            } finally {
+                lane.waitingCallers--;
+                if (lane.inFlight < perAthleteMaxConcurrent) {
+                    lane.slotFreed.signal(); // pass on a wake-up this caller is leaving without using
+                }
+                if (lane.idle()) {
+                    lanes.remove(athleteKey, lane);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AthleteLane lane(String athleteKey) {
+        if (!running) {
+            throw new RejectedExecutionException("Upstream scheduler is shut down");
+        }
+        return lanes.computeIfAbsent(athleteKey, key -> new AthleteLane(key, lock.newCondition()));
+    }
+
+    private AthleteLane enqueue(String athleteKey, LaneTask<?> task) {
+        lock.lock();
+        try {
+            AthleteLane lane = lane(athleteKey);
+            if (lane.pending.size() + lane.waitingCallers >= perAthleteMaxQueued) {
+                throw new RejectedExecutionException("Too many queued upstream calls for " + athleteKey);
+            }
+            lane.pending.add(task);
+            markReadyIfRunnable(lane);
+            return lane;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void withdraw(AthleteLane lane, LaneTask<?> task) {
+        lock.lock();
+        try {
+            lane.pending.remove(task);
+            if (lane.idle()) {
+                readyLanes.remove(lane);
+                lane.ready = false;
+                lanes.remove(lane.athleteKey, lane);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWorker() {
+        while (running) {
+            AthleteLane lane;
+            LaneTask<?> task;
+            lock.lock();
+            try {
+                while (running && readyLanes.isEmpty()) {
+                    workAvailable.await();
+                }
+                if (!running) {
+                    return;
+                }
+                lane = readyLanes.poll();
+                lane.ready = false;
+                if (lane.inFlight >= perAthleteMaxConcurrent) {
+                    continue; // a caller took the free slot; release() marks the lane ready again
+                }
+                task = lane.pending.poll();
+                if (task == null) {
+                    continue; // its only task was withdrawn after the lane became ready
+                }
+                lane.inFlight++;
+                // Back of the queue: other athletes get a turn before this one runs again
+                markReadyIfRunnable(lane);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (task.claim()) {
+                    task.pickedUp.countDown();
+                    task.run(); // failures are captured by the FutureTask and rethrown to the caller
+                }
+            } finally {
+                Thread.interrupted(); // never carry an interrupt into the next athlete's task
+                release(lane);
+            }
+        }
+    }
+
+    private void release(AthleteLane lane) {
+        lock.lock();
+        try {
+            lane.inFlight--;
+            lane.slotFreed.signal();
+            markReadyIfRunnable(lane);
+            if (lane.idle()) {
+                lanes.remove(lane.athleteKey, lane);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void markReadyIfRunnable(AthleteLane lane) {
+        if (!lane.ready && !lane.pending.isEmpty() && lane.inFlight < perAthleteMaxConcurrent) {
+            lane.ready = true;
+            readyLanes.add(lane);
+            workAvailable.signal();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        lock.lock();
+        try {
+            running = false;
+            workAvailable.signalAll();
+            lanes.values().forEach(lane -> lane.slotFreed.signalAll());
+        } finally {
+            lock.unlock();
+        }
+        workers.forEach(Thread::interrupt);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.strava.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Timing policy for activity page requests: the per-attempt timeout, retry jitter and when to hedge.
+ * <p>
+ * A page attempt still running after the recent {@code quantile} latency of successful attempts gets a
+ * duplicate request, and whichever answers first wins. Hedging waits for {@code min-samples} successes
+ * first, and skips duplicates once Strava's rate budget is down to {@code rate-limit-reserve}, so a
+ * slow period cannot double the request rate into a 429.
+ */
+@Component
+public class PageFetchPolicy {
+
+    private static final int WINDOW = 256;
+
+    private final Duration attemptTimeout;
+    private final double retryJitter;
+    private final boolean hedgingEnabled;
+    private final double quantile;
+    private final int minSamples;
+    private final Duration minHedgeDelay;
+    private final double rateLimitReserve;
+    private final StravaRateLimitTracker rateLimitTracker;
+    private final Counter hedges;
+
+    private final long[] latencies = new long[WINDOW]; // nanos of recent successful attempts, as a ring
+    private int samples;
+
+    public PageFetchPolicy(
+            @Value("${strava.pages.attempt-timeout:10s}") Duration attemptTimeout,
+            @Value("${strava.pages.retry-jitter:0.5}") double retryJitter,
+            @Value("${strava.pages.hedging.enabled:true}") boolean hedgingEnabled,
+            @Value("${strava.pages.hedging.quantile:0.95}") double quantile,
+            @Value("${strava.pages.hedging.min-samples:20}") int minSamples,
+            @Value("${strava.pages.hedging.min-delay:200ms}") Duration minHedgeDelay,
+            @Value("${strava.pages.hedging.rate-limit-reserve:0.25}") double rateLimitReserve,
+            StravaRateLimitTracker rateLimitTracker,
+            MeterRegistry meterRegistry) {
+        this.attemptTimeout = attemptTimeout;
+        this.retryJitter = retryJitter;
+        this.hedgingEnabled = hedgingEnabled;
+        this.quantile = quantile;
+        this.minSamples = Math.max(1, Math.min(WINDOW, minSamples));
+        this.minHedgeDelay = minHedgeDelay;
+        this.rateLimitReserve = rateLimitReserve;
+        this.rateLimitTracker = rateLimitTracker;
+        this.hedges = Counter.builder("strava.pages.hedged").register(meterRegistry);
+    }
+
+    public Duration attemptTimeout() {
+        return attemptTimeout;
+    }
+
+    public double retryJitter() {
+        return retryJitter;
+    }
+
+    public synchronized void recordLatency(long nanos) {
+        latencies[samples % WINDOW] = nanos;
+        samples++;
+    }
+
+    /**
+     * How long to wait before hedging an attempt, or null when attempts should not be hedged.
+     */
+    public Duration hedgeDelay() {
+        if (!hedgingEnabled) {
+            return null;
+        }
+        long[] window;
+        synchronized (this) {
+            if (samples < minSamples) {
+                return null;
+            }
+            window = Arrays.copyOf(latencies, Math.min(samples, WINDOW));
+        }
+        Arrays.sort(window);
+        Duration observed = Duration.ofNanos(window[(int) Math.min(window.length - 1, Math.floor(quantile * window.length))]);
+        if (observed.compareTo(attemptTimeout) >= 0) {
+            return null; // The attempt would time out before the hedge fired
+        }
+        return observed.compareTo(minHedgeDelay) < 0 ? minHedgeDelay : observed;
+    }
+
+    /**
+     * Checked when the hedge delay has passed: whether the rate budget still allows a duplicate request.
+     */
+    public boolean allowHedge() {
+        if (!rateLimitTracker.hasHeadroom(rateLimitReserve)) {
+            return false;
+        }
+        hedges.increment();
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.strava.service;
+
+import com.example.strava.model.StravaActivity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers how far pagination got for an athlete and date range when upstream gave up, so the
+ * next request resumes from the last successful page instead of starting over at page one.
+ */
+@Component
+public class PaginationCheckpointStore {
+
+    /**
+     * Pages already fetched for a range, and the {@code before} cursor for the next page.
+     */
+    public record Checkpoint(List<StravaActivity> activities, LocalDate nextBefore, int pagesFetched, Instant createdAt) {
+    }
+
+    private final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final int maxEntries;
+
+    public PaginationCheckpointStore(
+            @Value("${strava.pagination.checkpoint-ttl:15m}") Duration ttl,
+            @Value("${strava.pagination.checkpoint-max-entries:1000}") int maxEntries) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    public Optional<Checkpoint> find(String principalName, LocalDate after, LocalDate before) {
+        String key = key(principalName, after, before);
+        Checkpoint checkpoint = checkpoints.get(key);
+        if (checkpoint == null) {
+            return Optional.empty();
+        }
+        if (isExpired(checkpoint, Instant.now())) {
+            checkpoints.remove(key, checkpoint);
+            return Optional.empty();
+        }
+        return Optional.of(checkpoint);
+    }
+
+    public void save(String principalName, LocalDate after, LocalDate before,
+                     List<StravaActivity> activities, LocalDate nextBefore, int pagesFetched) {
+        if (checkpoints.size() >= maxEntries) {
+            Instant now = Instant.now();
+            checkpoints.values().removeIf(c -> isExpired(c, now));
+            if (checkpoints.size() >= maxEntries) {
+                return; // Still full: drop this checkpoint rather than grow without bound
+            }
+        }
+        checkpoints.put(key(principalName, after, before),
+                new Checkpoint(List.copyOf(activities), nextBefore, pagesFetched, Instant.now()));
+    }
+
+    public void clear(String principalName, LocalDate after, LocalDate before) {
+        checkpoints.remove(key(principalName, after, before));
+    }
+
+    private boolean isExpired(Checkpoint checkpoint, Instant now) {
+        return checkpoint.createdAt().plus(ttl).isBefore(now);
+    }
+
+    private static String key(String principalName, LocalDate after, LocalDate before) {
+        return principalName + '|' + after + '|' + before;
+    }
+}
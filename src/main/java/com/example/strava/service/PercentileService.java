@@ -0,0 +1,322 @@
+package com.example.strava.service;
+
+import com.example.strava.model.ActivityFetchResult;
+import com.example.strava.model.PercentileDto;
+import com.example.strava.model.StravaActivity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Pace, distance and moving-time percentiles from {@link QuantileSketch}es.
+ * <p>
+ * Each athlete's history is indexed once: per sport, a sketch per metric for every active day, rolled up
+ * into week, month and whole-history sketches. The index is kept per athlete and reused for any range it
+ * covers; a query merges the period sketches that lie inside its range and only the days of periods cut by
+ * its ends, so no request sorts a full history.
+ */
+@Service
+public class PercentileService {
+
+    public enum Metric {
+        PACE("pace") {
+            @Override
+            Double value(StravaActivity a) {
+                double miles = distance(a) * ActivityAggregate.METERS_TO_MILES;
+                return miles > 0 && movingTime(a) > 0 ? movingTime(a) / miles : null;
+            }
+
+            @Override
+            String format(double secondsPerMile) {
+                long seconds = Math.round(secondsPerMile);
+                return String.format("%02d:%02d /mi", seconds / 60, seconds % 60);
+            }
+        },
+        DISTANCE("distance") {
+            @Override
+            Double value(StravaActivity a) {
+                return a.getDistance() != null ? a.getDistance() * ActivityAggregate.METERS_TO_MILES : null;
+            }
+
+            @Override
+            String format(double miles) {
+                return String.format("%.2f mi", miles);
+            }
+        },
+        MOVING_TIME("moving-time") {
+            @Override
+            Double value(StravaActivity a) {
+                return a.getMovingTime() != null ? (double) a.getMovingTime() : null;
+            }
+
+            @Override
+            String format(double value) {
+                long seconds = Math.round(value);
+                return String.format("%02d:%02d:%02d", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+            }
+        };
+
+        private final String param;
+
+        Metric(String param) {
+            this.param = param;
+        }
+
+        abstract Double value(StravaActivity a);
+
+        abstract String format(double value);
+
+        public static Metric fromParam(String param) {
+            for (Metric metric : values()) {
+                if (metric.param.equalsIgnoreCase(param)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Unknown percentile metric: " + param);
+        }
+
+        private static double distance(StravaActivity a) {
+            return a.getDistance() != null ? a.getDistance() : 0;
+        }
+
+        private static int movingTime(StravaActivity a) {
+            return a.getMovingTime() != null ? a.getMovingTime() : 0;
+        }
+    }
+
+    /**
+     * Percentile buckets, with {@code partial} set when upstream gave up part-way through the history and
+     * {@code stale} when it was served from an old snapshot that is being refreshed; {@code fetchedAt} is
+     * when the activities were read from Strava.
+     */
+    public record Percentiles(List<PercentileDto> buckets, boolean partial, boolean stale, Instant fetchedAt) {
+    }
+
+    private static final List<String> PERIODS = List.of("all", "daily", "weekly", "monthly");
+
+    // Sketches for a run of consecutive active days sharing a period label; first..last index the sport's days
+    private record PeriodBucket(String label, int first, int last, QuantileSketch[] sketches) {
+    }
+
+    // One sport's active days in order, a sketch per Metric ordinal for each, and the days rolled up per period
+    private record SportIndex(long[] epochDays, QuantileSketch[][] days, Map<String, List<PeriodBucket>> periods) {
+    }
+
+    // An athlete's sketches for every day from..to
+    private record Index(LocalDate from, LocalDate to, Map<String, SportIndex> sports, Instant fetchedAt,
+                         Instant createdAt) {
+        boolean covers(LocalDate start, LocalDate end) {
+            return !from.isAfter(start) && !to.isBefore(end);
+        }
+    }
+
+    private final StravaApiService stravaApiService;
+    private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+    private final double relativeAccuracy;
+    private final Duration ttl;
+    private final int maxEntries;
+
+    public PercentileService(
+            StravaApiService stravaApiService,
+            @Value("${strava.percentiles.relative-accuracy:0.01}") double relativeAccuracy,
+            @Value("${strava.percentiles.cache-ttl:5m}") Duration ttl,
+            @Value("${strava.percentiles.cache-max-entries:1000}") int maxEntries) {
+        this.stravaApiService = stravaApiService;
+        this.relativeAccuracy = relativeAccuracy;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * p10/p50/p90 of {@code metric} per {@code period} bucket ({@code all}, {@code daily}, {@code weekly} or
+     * {@code monthly}), for one sport type or, when {@code sportType} is null, all of them.
+     */
+    public Percentiles getPercentiles(String athleteId, LocalDate after, LocalDate before,
+                                      Metric metric, String sportType, String period) {
+        String periodKey = period.toLowerCase();
+        if (!PERIODS.contains(periodKey)) {
+            throw new IllegalArgumentException("Unknown period: " + period);
+        }
+        LocalDate from = ActivityCoverage.start(after);
+        LocalDate to = ActivityCoverage.end(before, LocalDate.now());
+
+        boolean partial = false;
+        boolean stale = false;
+        Index index = indexes.get(athleteId);
+        if (index == null || isExpired(index, Instant.now()) || !index.covers(from, to)) {
+            // A live index for other dates is widened to cover both, so moving the range doesn't rebuild twice
+            LocalDate indexFrom = from;
+            LocalDate indexTo = to;
+            if (index != null && !isExpired(index, Instant.now())) {
+                indexFrom = index.from().isBefore(from) ? index.from() : from;
+                indexTo = index.to().isAfter(to) ? index.to() : to;
+            }
+            ActivityFetchResult fetched = stravaApiService.getAllActivities(athleteId,
+                    indexFrom.equals(LocalDate.MIN) ? null : indexFrom, indexTo);
+            index = buildIndex(fetched.getActivities(), indexFrom, indexTo, fetched.getFetchedAt());
+            partial = fetched.isPartial();
+            stale = fetched.isStale();
+            if (!partial && !stale) {
+                put(athleteId, index);
+            }
+        }
+
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        Map<String, QuantileSketch> byLabel = new TreeMap<>();
+        index.sports().forEach((sport, sportIndex) -> {
+            if (sportType == null || sportType.equalsIgnoreCase(sport)) {
+                mergeInto(byLabel, sportIndex, periodKey, metric, first, last);
+            }
+        });
+
+        List<PercentileDto> buckets = new ArrayList<>(byLabel.size());
+        byLabel.forEach((bucketLabel, sketch) -> {
+            if (sketch.getCount() > 0) {
+                double p10 = sketch.quantile(0.10);
+                double p50 = sketch.quantile(0.50);
+                double p90 = sketch.quantile(0.90);
+                buckets.add(new PercentileDto(bucketLabel, sketch.getCount(), p10, p50, p90,
+                        metric.format(p10), metric.format(p50), metric.format(p90)));
+            }
+        });
+        return new Percentiles(buckets, partial, stale, index.fetchedAt());
+    }
+
+    /**
+     * Merges one sport's sketches for the days {@code first..last} (epoch days) into {@code byLabel}. Period
+     * buckets inside the range are merged whole; only buckets cut by its ends fall back to their days. A
+     * whole-history bucket cut by the range is assembled from months the same way.
+     */
+    private void mergeInto(Map<String, QuantileSketch> byLabel, SportIndex sport, String period, Metric metric,
+                           long first, long last) {
+        int lo = firstDayFrom(sport.epochDays(), first);
+        int hi = firstDayFrom(sport.epochDays(), last + 1) - 1;
+        if (lo > hi) {
+            return;
+        }
+        boolean wholeHistory = lo == 0 && hi == sport.epochDays().length - 1;
+        if ("all".equals(period) && !wholeHistory) {
+            QuantileSketch target = byLabel.computeIfAbsent("all", k -> new QuantileSketch(relativeAccuracy));
+            mergeBuckets(sport, sport.periods().get("monthly"), metric.ordinal(), lo, hi, bucket -> target);
+        } else {
+            mergeBuckets(sport, sport.periods().get(period), metric.ordinal(), lo, hi, bucket -> byLabel
+                    .computeIfAbsent(bucket.label(), k -> new QuantileSketch(relativeAccuracy)));
+        }
+    }
+
+    private static void mergeBuckets(SportIndex sport, List<PeriodBucket> buckets, int metric, int lo, int hi,
+                                     Function<PeriodBucket, QuantileSketch> targets) {
+        for (PeriodBucket bucket : buckets) {
+            if (bucket.last() < lo || bucket.first() > hi) {
+                continue;
+            }
+            QuantileSketch target = targets.apply(bucket);
+            if (bucket.first() >= lo && bucket.last() <= hi) {
+                target.merge(bucket.sketches()[metric]);
+            } else {
+                for (int day = Math.max(bucket.first(), lo); day <= Math.min(bucket.last(), hi); day++) {
+                    target.merge(sport.days()[day][metric]);
+                }
+            }
+        }
+    }
+
+    // Index of the first active day on or after epochDay, or the number of days when there is none
+    private static int firstDayFrom(long[] epochDays, long epochDay) {
+        int found = Arrays.binarySearch(epochDays, epochDay);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private Index buildIndex(List<StravaActivity> activities, LocalDate from, LocalDate to, Instant fetchedAt) {
+        Metric[] metrics = Metric.values();
+        Map<String, TreeMap<Long, QuantileSketch[]>> bySport = new HashMap<>();
+        for (StravaActivity activity : activities) {
+            String sport = ActivityAggregate.typeKey(activity);
+            QuantileSketch[] day = bySport
+                    .computeIfAbsent(sport != null ? sport : "Unknown", s -> new TreeMap<>())
+                    .computeIfAbsent(activity.getStartDateLocal().toLocalDate().toEpochDay(),
+                            d -> newSketches(metrics.length));
+            for (Metric metric : metrics) {
+                Double value = metric.value(activity);
+                if (value != null) {
+                    day[metric.ordinal()].add(value);
+                }
+            }
+        }
+
+        Map<String, SportIndex> sports = new HashMap<>();
+        bySport.forEach((sport, days) -> {
+            long[] epochDays = days.keySet().stream().mapToLong(Long::longValue).toArray();
+            QuantileSketch[][] daySketches = days.values().toArray(new QuantileSketch[0][]);
+            Map<String, List<PeriodBucket>> periods = new HashMap<>();
+            for (String period : PERIODS) {
+                periods.put(period, rollUp(epochDays, daySketches, period));
+            }
+            sports.put(sport, new SportIndex(epochDays, daySketches, periods));
+        });
+        return new Index(from, to, sports, fetchedAt, Instant.now());
+    }
+
+    // Groups consecutive days with the same period label; daily buckets share the day sketches
+    private List<PeriodBucket> rollUp(long[] epochDays, QuantileSketch[][] days, String period) {
+        Function<LocalDate, String> label = "all".equals(period)
+                ? day -> "all"
+                : StravaStatsService.periodLabel(period);
+        List<PeriodBucket> buckets = new ArrayList<>();
+        int first = 0;
+        while (first < epochDays.length) {
+            String current = label.apply(LocalDate.ofEpochDay(epochDays[first]));
+            int end = first + 1;
+            while (end < epochDays.length && current.equals(label.apply(LocalDate.ofEpochDay(epochDays[end])))) {
+                end++;
+            }
+            QuantileSketch[] sketches = days[first];
+            if (end - first > 1) {
+                sketches = newSketches(sketches.length);
+                for (int day = first; day < end; day++) {
+                    for (int m = 0; m < sketches.length; m++) {
+                        sketches[m].merge(days[day][m]);
+                    }
+                }
+            }
+            buckets.add(new PeriodBucket(current, first, end - 1, sketches));
+            first = end;
+        }
+        return buckets;
+    }
+
+    private QuantileSketch[] newSketches(int count) {
+        QuantileSketch[] sketches = new QuantileSketch[count];
+        for (int i = 0; i < count; i++) {
+            sketches[i] = new QuantileSketch(relativeAccuracy);
+        }
+        return sketches;
+    }
+
+    private void put(String athleteId, Index index) {
+        if (indexes.size() >= maxEntries) {
+            Instant now = Instant.now();
+            indexes.values().removeIf(i -> isExpired(i, now));
+            if (indexes.size() >= maxEntries) {
+                return; // Still full: rebuild next time rather than grow without bound
+            }
+        }
+        indexes.put(athleteId, index);
+    }
+
+    private boolean isExpired(Index index, Instant now) {
+        return index.createdAt().plus(ttl).isBefore(now);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.strava.service;
+
+import com.example.strava.model.PeriodStatsDto;
+import com.example.strava.model.StravaActivity;
+import com.example.strava.model.WorkoutHeatmapDto;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stats for several date ranges out of one fetched history: a single pass splits the activities by range,
+ * then each range's DTOs are built concurrently and compared with the first range.
+ */
+@Service
+public class PeriodComparisonService {
+
+    public static final int MAX_RANGES = 6;
+
+    /**
+     * An inclusive range of local dates, written {@code 2024-05-01..2024-05-31}.
+     */
+    public record DateRange(LocalDate after, LocalDate before) {
+
+        public static DateRange parse(String value) {
+            int separator = value.indexOf("..");
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected a range like 2024-05-01..2024-05-31: " + value);
+            }
+            try {
+                DateRange range = new DateRange(LocalDate.parse(value.substring(0, separator).trim()),
+                        LocalDate.parse(value.substring(separator + 2).trim()));
+                if (range.after().isAfter(range.before())) {
+                    throw new IllegalArgumentException("Start date must be before or equal to end date: " + value);
+                }
+                return range;
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid date in range: " + value);
+            }
+        }
+
+        /**
+         * The smallest range covering all of {@code ranges}, i.e. what to fetch.
+         */
+        public static DateRange span(List<DateRange> ranges) {
+            LocalDate after = ranges.get(0).after();
+            LocalDate before = ranges.get(0).before();
+            for (DateRange range : ranges) {
+                after = range.after().isBefore(after) ? range.after() : after;
+                before = range.before().isAfter(before) ? range.before() : before;
+            }
+            return new DateRange(after, before);
+        }
+
+        boolean contains(LocalDate day) {
+            return !day.isBefore(after) && !day.isAfter(before);
+        }
+    }
+
+    private final StravaStatsService statsService;
+
+    public PeriodComparisonService(StravaStatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    public static List<DateRange> parseRanges(List<String> values) {
+        if (values == null || values.size() < 2 || values.size() > MAX_RANGES) {
+            throw new IllegalArgumentException("Compare between 2 and " + MAX_RANGES + " ranges");
+        }
+        return values.stream().map(DateRange::parse).toList();
+    }
+
+    /**
+     * @param activities the history covering {@link DateRange#span} of {@code ranges}
+     */
+    public List<PeriodStatsDto> compare(List<StravaActivity> activities, List<DateRange> ranges) {
+        // One pass over the history; ranges may overlap, so an activity can land in several
+        List<ActivityAggregate> aggregates = new ArrayList<>(ranges.size());
+        List<List<StravaActivity>> inRange = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            aggregates.add(new ActivityAggregate());
+            inRange.add(new ArrayList<>());
+        }
+        for (StravaActivity activity : activities) {
+            LocalDate day = activity.getStartDateLocal().toLocalDate();
+            for (int i = 0; i < ranges.size(); i++) {
+                if (ranges.get(i).contains(day)) {
+                    aggregates.get(i).add(activity);
+                    inRange.get(i).add(activity);
+                }
+            }
+        }
+
+        List<PeriodStatsDto> periods = new ArrayList<>(ranges.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<PeriodStatsDto>> futures = new ArrayList<>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                DateRange range = ranges.get(i);
+                ActivityAggregate aggregate = aggregates.get(i);
+                List<StravaActivity> rangeActivities = inRange.get(i);
+                futures.add(executor.submit(() -> periodStats(range, aggregate, rangeActivities)));
+            }
+            for (Future<PeriodStatsDto> future : futures) {
+                periods.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while comparing periods");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        Map<String, Double> baseline = periods.get(0).getMetrics();
+        periods.get(0).setDeltas(Collections.emptyMap());
+        for (PeriodStatsDto period : periods.subList(1, periods.size())) {
+            Map<String, Double> deltas = new LinkedHashMap<>();
+            period.getMetrics().forEach((name, value) -> {
+                Double base = baseline.get(name);
+                if (base != null) {
+                    deltas.put(name, value - base);
+                }
+            });
+            period.setDeltas(deltas);
+        }
+        return periods;
+    }
+
+    private PeriodStatsDto periodStats(DateRange range, ActivityAggregate aggregate, List<StravaActivity> activities) {
+        WorkoutHeatmapDto streaks = statsService.getWorkoutHeatmapSummary(activities, range.before(), range.after());
+
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("activities", (double) aggregate.getActivityCount());
+        metrics.put("movingTimeSeconds", (double) aggregate.getTotalMovingTime());
+        metrics.put("runs", (double) aggregate.getTotalRuns());
+        metrics.put("runs10KPlus", (double) aggregate.getRuns10KPlus());
+        metrics.put("runMiles", aggregate.getRunMiles());
+        if (aggregate.getRunMiles() > 0) {
+            metrics.put("averagePaceSecondsPerMile", aggregate.getRunSeconds() / aggregate.getRunMiles());
+        }
+        metrics.put("longestRunMiles", aggregate.getLongestRunMiles());
+        metrics.put("mostElevationFeet", aggregate.getMostElevationFeet());
+        metrics.put("workoutDays", (double) streaks.getWorkoutDays());
+        metrics.put("longestStreak", (double) streaks.getLongestStreak());
+
+        return PeriodStatsDto.builder()
+                .after(range.after())
+                .before(range.before())
+                .summary(statsService.getSummaryStats(aggregate))
+                .activityCounts(statsService.getActivityCountDistribution(aggregate))
+                .runStatistics(statsService.getRunStatistics(aggregate))
+                .streaks(streaks)
+                .metrics(metrics)
+                .build();
+    }
+}
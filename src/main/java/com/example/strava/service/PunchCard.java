@@ -0,0 +1,88 @@
+package com.example.strava.service;
+
+import com.example.strava.model.PunchCardDto;
+import com.example.strava.model.StravaActivity;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Mergeable weekday × hour accumulator behind the punch-card view.
+ * <p>
+ * Counts, moving seconds and metres go into flat 7×24 primitive arrays indexed by
+ * {@code (dayOfWeek - 1) * 24 + hour} of {@code start_date_local}, so an all-time history costs one pass
+ * and no boxed keys. {@link #merge} adds cell by cell, which makes it associative: cards for chunks,
+ * periods or athletes combine into the same result as one pass over everything.
+ */
+public final class PunchCard {
+
+    static final int DAYS = 7;
+    static final int HOURS = 24;
+
+    private final String sportType;
+    private final int[] counts = new int[DAYS * HOURS];
+    private final long[] movingSeconds = new long[DAYS * HOURS];
+    private final double[] meters = new double[DAYS * HOURS];
+
+    /**
+     * @param sportType a sport or activity type to count, or null or {@code "all"} for every activity
+     */
+    public PunchCard(String sportType) {
+        this.sportType = sportType == null || "all".equalsIgnoreCase(sportType) ? null : sportType;
+    }
+
+    public static PunchCard of(List<StravaActivity> activities, String sportType) {
+        PunchCard card = new PunchCard(sportType);
+        activities.forEach(card::add);
+        return card;
+    }
+
+    /**
+     * Builds the card on the common fork-join pool; each worker fills its own arrays and they are merged.
+     */
+    public static PunchCard parallel(List<StravaActivity> activities, String sportType) {
+        return activities.parallelStream().collect(() -> new PunchCard(sportType), PunchCard::add, PunchCard::merge);
+    }
+
+    void add(StravaActivity a) {
+        if (!matches(a)) {
+            return;
+        }
+        ZonedDateTime start = a.getStartDateLocal();
+        int cell = (start.getDayOfWeek().getValue() - 1) * HOURS + start.getHour();
+        counts[cell]++;
+        movingSeconds[cell] += a.getMovingTime() != null ? a.getMovingTime() : 0;
+        meters[cell] += a.getDistance() != null ? a.getDistance() : 0;
+    }
+
+    public PunchCard merge(PunchCard other) {
+        for (int cell = 0; cell < counts.length; cell++) {
+            counts[cell] += other.counts[cell];
+            movingSeconds[cell] += other.movingSeconds[cell];
+            meters[cell] += other.meters[cell];
+        }
+        return this;
+    }
+
+    public PunchCardDto toDto() {
+        int[][] countGrid = new int[DAYS][HOURS];
+        double[][] hourGrid = new double[DAYS][HOURS];
+        double[][] mileGrid = new double[DAYS][HOURS];
+        int total = 0;
+        for (int cell = 0; cell < counts.length; cell++) {
+            int day = cell / HOURS;
+            int hour = cell % HOURS;
+            countGrid[day][hour] = counts[cell];
+            hourGrid[day][hour] = movingSeconds[cell] / 3600.0;
+            mileGrid[day][hour] = meters[cell] * ActivityAggregate.METERS_TO_MILES;
+            total += counts[cell];
+        }
+        return new PunchCardDto(sportType != null ? sportType : "all", total, countGrid, hourGrid, mileGrid);
+    }
+
+    private boolean matches(StravaActivity a) {
+        return sportType == null
+                || sportType.equalsIgnoreCase(a.getSportType())
+                || (a.getSportType() == null && sportType.equalsIgnoreCase(a.getType()));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.strava.service;
+
+/**
+ * Mergeable streaming quantile sketch with relative error guarantees (the DDSketch scheme).
+ * <p>
+ * Positive values land in logarithmic buckets {@code (gamma^(i-1), gamma^i]} with
+ * {@code gamma = (1 + a) / (1 - a)}, so any reported quantile is within relative error {@code a} of a
+ * real value. Merging adds bucket counts, so sketches for days combine into weeks, months or a whole
+ * history without revisiting activities.
+ * <p>
+ * Bucket counts live in one {@code long[]} over the contiguous range of indexes seen so far, so adding and
+ * merging are array arithmetic. At 1% accuracy a pace or distance spans a few hundred buckets at most.
+ */
+public final class QuantileSketch {
+
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double logGamma;
+    private long[] counts = new long[0]; // counts[i] holds bucket offset + i
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    public void add(double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            throw new IllegalArgumentException("Only non-negative values can be added: " + value);
+        }
+        if (value <= MIN_INDEXABLE) {
+            zeroCount++;
+        } else {
+            int index = (int) Math.ceil(Math.log(value) / logGamma);
+            ensureBuckets(index, index);
+            counts[index - offset]++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        if (other.counts.length > 0) {
+            ensureBuckets(other.offset, other.offset + other.counts.length - 1);
+            int shift = other.offset - offset;
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[shift + i] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Value at quantile {@code q} (0..1), or {@code NaN} for an empty sketch.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = q * (count - 1);
+        long seen = zeroCount;
+        if (rank < seen) {
+            return min;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // Midpoint (in relative terms) of the bucket; exact min/max bound the ends
+                double estimate = 2 * Math.exp((offset + i) * logGamma) / (1 + Math.exp(logGamma));
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    // Widens the bucket array to include indexes lo..hi, with slack so a run of new extremes doesn't copy each time
+    private void ensureBuckets(int lo, int hi) {
+        if (counts.length == 0) {
+            offset = lo;
+            counts = new long[hi - lo + 1];
+            return;
+        }
+        int end = offset + counts.length;
+        if (lo >= offset && hi < end) {
+            return;
+        }
+        int slack = counts.length / 2;
+        int newOffset = lo < offset ? Math.min(lo, offset - slack) : offset;
+        int newEnd = hi >= end ? Math.max(hi + 1, end + slack) : end;
+        long[] grown = new long[newEnd - newOffset];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.strava.service;
+
+import com.example.strava.model.QueryRowDto;
+import com.example.strava.model.StravaActivity;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Ad-hoc group-by query over an activity history: a filter, up to one time dimension plus sport, and a list
+ * of metrics such as {@code count}, {@code sum:distance} or {@code max:elevation}.
+ * <p>
+ * {@link #parse} compiles the request into a plan: the distinct fields to read and, per group, one
+ * {@code double[]} of accumulators (sum, non-null count, max, min per field). {@link #execute} then makes a
+ * single pass over the activities. Values are in Strava units: meters, seconds and meters per second.
+ */
+public final class StatsQuery {
+
+    public enum Dimension {
+        SPORT, DAY, WEEK, MONTH, YEAR, WEEKDAY
+    }
+
+    public enum Field {
+        DISTANCE(a -> a.getDistance() != null ? a.getDistance() : Double.NaN),
+        MOVING_TIME(a -> a.getMovingTime() != null ? a.getMovingTime() : Double.NaN),
+        ELAPSED_TIME(a -> a.getElapsedTime() != null ? a.getElapsedTime() : Double.NaN),
+        ELEVATION(a -> a.getTotalElevationGain() != null ? a.getTotalElevationGain() : Double.NaN),
+        AVERAGE_SPEED(a -> a.getAverageSpeed() != null ? a.getAverageSpeed() : Double.NaN),
+        MAX_SPEED(a -> a.getMaxSpeed() != null ? a.getMaxSpeed() : Double.NaN);
+
+        private final ToDoubleFunction<StravaActivity> reader; // NaN when the activity has no value
+
+        Field(ToDoubleFunction<StravaActivity> reader) {
+            this.reader = reader;
+        }
+    }
+
+    public enum Aggregation {
+        COUNT, SUM, AVG, MAX, MIN
+    }
+
+    private record Metric(String name, Aggregation function, int fieldSlot) {
+    }
+
+    private static final int ACCUMULATORS_PER_FIELD = 4; // sum, non-null count, max, min
+    private static final int MAX_METRICS = 20;
+
+    private final Dimension timeDimension; // null when not grouping by time
+    private final boolean bySport;
+    private final Field[] fields;
+    private final List<Metric> metrics;
+    private final String sportType;
+    private final double minDistanceMeters;
+
+    private StatsQuery(Dimension timeDimension, boolean bySport, Field[] fields, List<Metric> metrics,
+                       String sportType, double minDistanceMeters) {
+        this.timeDimension = timeDimension;
+        this.bySport = bySport;
+        this.fields = fields;
+        this.metrics = metrics;
+        this.sportType = sportType;
+        this.minDistanceMeters = minDistanceMeters;
+    }
+
+    /**
+     * @param groupBy           comma-separated dimensions, e.g. {@code sport,month}; blank for one overall row
+     * @param metrics           comma-separated {@code count} or {@code function:field}, e.g. {@code avg:moving_time}
+     * @param sportType         only this sport or activity type; null for all
+     * @param minDistanceMeters only activities at least this long
+     */
+    public static StatsQuery parse(String groupBy, String metrics, String sportType, double minDistanceMeters) {
+        Dimension timeDimension = null;
+        boolean bySport = false;
+        if (groupBy != null && !groupBy.isBlank()) {
+            for (String token : groupBy.split(",")) {
+                Dimension dimension = parseEnum(Dimension.class, token.trim(), "group-by dimension");
+                if (dimension == Dimension.SPORT) {
+                    bySport = true;
+                } else if (timeDimension != null && timeDimension != dimension) {
+                    throw new IllegalArgumentException("Group by at most one time dimension");
+                } else {
+                    timeDimension = dimension;
+                }
+            }
+        }
+
+        List<Field> fields = new ArrayList<>();
+        List<Metric> parsed = new ArrayList<>();
+        String[] tokens = metrics == null || metrics.isBlank() ? new String[]{"count"} : metrics.split(",");
+        if (tokens.length > MAX_METRICS) {
+            throw new IllegalArgumentException("At most " + MAX_METRICS + " metrics per query");
+        }
+        for (String raw : tokens) {
+            String token = raw.trim().toLowerCase(Locale.ROOT);
+            if (token.equals("count")) {
+                parsed.add(new Metric(token, Aggregation.COUNT, -1));
+                continue;
+            }
+            int colon = token.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Metric must be count or function:field: " + raw.trim());
+            }
+            Aggregation function = parseEnum(Aggregation.class, token.substring(0, colon), "metric function");
+            Field field = parseEnum(Field.class, token.substring(colon + 1), "metric field");
+            if (function == Aggregation.COUNT) {
+                throw new IllegalArgumentException("count takes no field: " + raw.trim());
+            }
+            int slot = fields.indexOf(field);
+            if (slot < 0) {
+                slot = fields.size();
+                fields.add(field);
+            }
+            parsed.add(new Metric(token, function, slot));
+        }
+        return new StatsQuery(timeDimension, bySport, fields.toArray(new Field[0]), List.copyOf(parsed),
+                sportType, minDistanceMeters);
+    }
+
+    public List<QueryRowDto> execute(List<StravaActivity> activities) {
+        WeekFields weekFields = WeekFields.of(Locale.getDefault());
+        Map<String, Integer> sportIndex = new HashMap<>();
+        List<String> sports = new ArrayList<>();
+        Map<Long, double[]> groups = new HashMap<>();
+        int width = 1 + fields.length * ACCUMULATORS_PER_FIELD; // slot 0 is the row count
+
+        for (StravaActivity activity : activities) {
+            String sport = ActivityAggregate.typeKey(activity);
+            if (sportType != null && !sportType.equalsIgnoreCase(sport)) continue;
+            if (minDistanceMeters > 0 && !(Field.DISTANCE.reader.applyAsDouble(activity) >= minDistanceMeters)) continue;
+
+            long sportKey = 0;
+            if (bySport) {
+                String name = sport != null ? sport : "Unknown";
+                Integer index = sportIndex.get(name);
+                if (index == null) {
+                    index = sports.size();
+                    sportIndex.put(name, index);
+                    sports.add(name);
+                }
+                sportKey = index;
+            }
+            long timeKey = timeDimension == null ? 0 : timeKey(activity.getStartDateLocal().toLocalDate(), weekFields);
+            double[] acc = groups.computeIfAbsent((sportKey << 40) | (timeKey & 0xFF_FFFF_FFFFL), k -> newAccumulators(width));
+
+            acc[0]++;
+            for (int f = 0; f < fields.length; f++) {
+                double value = fields[f].reader.applyAsDouble(activity);
+                if (Double.isNaN(value)) continue;
+                int base = 1 + f * ACCUMULATORS_PER_FIELD;
+                acc[base] += value;
+                acc[base + 1]++;
+                acc[base + 2] = Math.max(acc[base + 2], value);
+                acc[base + 3] = Math.min(acc[base + 3], value);
+            }
+        }
+
+        return groups.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, double[]> e) -> timeKeyOf(e.getKey()))
+                        .thenComparing(e -> bySport ? sports.get((int) (e.getKey() >>> 40)) : ""))
+                .map(e -> toRow(e.getKey(), e.getValue(), sports))
+                .toList();
+    }
+
+    private long timeKey(LocalDate date, WeekFields weekFields) {
+        return switch (timeDimension) {
+            case DAY -> date.toEpochDay();
+            case WEEK -> date.with(weekFields.dayOfWeek(), 1).toEpochDay();
+            case MONTH -> date.getYear() * 12L + date.getMonthValue() - 1;
+            case YEAR -> date.getYear();
+            case WEEKDAY -> date.getDayOfWeek().getValue();
+            case SPORT -> throw new IllegalStateException("sport is not a time dimension");
+        };
+    }
+
+    private String timeLabel(long key) {
+        return switch (timeDimension) {
+            case DAY -> LocalDate.ofEpochDay(key).toString();
+            case WEEK -> StravaStatsService.periodLabel("weekly").apply(LocalDate.ofEpochDay(key));
+            case MONTH -> YearMonth.of((int) Math.floorDiv(key, 12), (int) Math.floorMod(key, 12) + 1).toString();
+            case YEAR -> String.valueOf(key);
+            case WEEKDAY -> DayOfWeek.of((int) key).name();
+            case SPORT -> throw new IllegalStateException("sport is not a time dimension");
+        };
+    }
+
+    private QueryRowDto toRow(long key, double[] acc, List<String> sports) {
+        Map<String, String> group = new LinkedHashMap<>();
+        if (bySport) {
+            group.put("sport", sports.get((int) (key >>> 40)));
+        }
+        if (timeDimension != null) {
+            group.put(timeDimension.name().toLowerCase(Locale.ROOT), timeLabel(timeKeyOf(key)));
+        }
+
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Metric metric : metrics) {
+            values.put(metric.name(), value(metric, acc));
+        }
+        return new QueryRowDto(group, values);
+    }
+
+    // Group keys pack the sport index above a 40-bit time key; sign-extend so pre-epoch days decode correctly
+    private static long timeKeyOf(long groupKey) {
+        return (groupKey << 24) >> 24;
+    }
+
+    private static Double value(Metric metric, double[] acc) {
+        if (metric.function() == Aggregation.COUNT) {
+            return acc[0];
+        }
+        int base = 1 + metric.fieldSlot() * ACCUMULATORS_PER_FIELD;
+        if (acc[base + 1] == 0) {
+            return null; // no activity in the group had this field
+        }
+        return switch (metric.function()) {
+            case SUM -> acc[base];
+            case AVG -> acc[base] / acc[base + 1];
+            case MAX -> acc[base + 2];
+            case MIN -> acc[base + 3];
+            case COUNT -> acc[0];
+        };
+    }
+
+    private static double[] newAccumulators(int width) {
+        double[] acc = new double[width];
+        for (int base = 1; base < width; base += ACCUMULATORS_PER_FIELD) {
+            acc[base + 2] = Double.NEGATIVE_INFINITY;
+            acc[base + 3] = Double.POSITIVE_INFINITY;
+        }
+        return acc;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String what) {
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(value)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + what + ": " + value);
+    }
+}
@@ -1,52 +1,125 @@
 package com.example.strava.service;
 
+import com.example.strava.diagnostics.ResilienceFallbackEvent;
+import com.example.strava.exception.ServiceOverloadedException;
+import com.example.strava.model.ActivityFetchResult;
 import com.example.strava.model.StravaActivity;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import com.example.strava.model.StravaStreamSet;
+import com.example.strava.store.ActivitySnapshot;
+import com.example.strava.store.ActivityStore;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
 
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 @Service
 public class StravaApiService {
 
     private static final Logger logger = LoggerFactory.getLogger(StravaApiService.class);
+    private static final int PER_PAGE = 200; // Strava's max per page
+    private static final int MAX_PAGES = 50; // Safety limit to prevent infinite loops
 
     private final WebClient webClient;
     private final OAuth2AuthorizedClientService authorizedClientService;
+    private final PaginationCheckpointStore checkpointStore;
+    private final FairUpstreamScheduler upstreamScheduler;
+    private final Retry retry;
+    private final AthleteCircuitBreakers athleteCircuitBreakers;
+    private final ActivityStore activityStore;
+    private final Duration storeFreshFor;
+    private final Duration storeRetention;
+    private final Duration staleWhileRevalidate;
+    private final Semaphore refreshPermits;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Object[] historyLocks = IntStream.range(0, 64).mapToObj(i -> new Object()).toArray();
+    private final ObservationRegistry observationRegistry;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final PageFetchPolicy pageFetchPolicy;
 
     public StravaApiService(
-            @Value("${strava.api.base-url}") String baseUrl,
-            OAuth2AuthorizedClientService authorizedClientService) {
-        this.webClient = WebClient.builder().baseUrl(baseUrl).build();
+            WebClient stravaWebClient,
+            OAuth2AuthorizedClientService authorizedClientService,
+            PaginationCheckpointStore checkpointStore,
+            FairUpstreamScheduler upstreamScheduler,
+            RetryRegistry retryRegistry,
+            AthleteCircuitBreakers athleteCircuitBreakers,
+            ActivityStore activityStore,
+            @Value("${strava.store.fresh-for:5m}") Duration storeFreshFor,
+            @Value("${strava.store.retention:24h}") Duration storeRetention,
+            @Value("${strava.store.stale-while-revalidate:1h}") Duration staleWhileRevalidate,
+            @Value("${strava.store.max-concurrent-refreshes:4}") int maxConcurrentRefreshes,
+            ObservationRegistry observationRegistry,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            PageFetchPolicy pageFetchPolicy) {
+        this.webClient = stravaWebClient;
         this.authorizedClientService = authorizedClientService;
+        this.checkpointStore = checkpointStore;
+        this.upstreamScheduler = upstreamScheduler;
+        // Applied programmatically so every page fetch, including those from getAllActivities, is protected
+        this.retry = retryRegistry.retry("stravaApi");
+        this.athleteCircuitBreakers = athleteCircuitBreakers;
+        this.activityStore = activityStore;
+        this.storeFreshFor = storeFreshFor;
+        this.storeRetention = storeRetention;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.refreshPermits = new Semaphore(Math.max(1, maxConcurrentRefreshes));
+        this.observationRegistry = observationRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.pageFetchPolicy = pageFetchPolicy;
     }
 
-    @Retry(name = "stravaApi", fallbackMethod = "getActivitiesFallback")
-    @CircuitBreaker(name = "stravaApi", fallbackMethod = "getActivitiesFallback")
-    public List<StravaActivity> getActivities(String principalName, LocalDate after, LocalDate before, int perPage) {
-        logger.debug("Fetching activities for user: {}", principalName);
-
-        OAuth2AuthorizedClient client = authorizedClientService.loadAuthorizedClient("strava", principalName);
+    private OAuth2AccessToken loadAccessToken(String principalName) {
+        OAuth2AuthorizedClient client = Observation.createNotStarted("strava.token.lookup", observationRegistry)
+                .observe(() -> authorizedClientService.loadAuthorizedClient("strava", principalName));
 
         if (client == null) {
             throw new IllegalStateException("No authorized client found for: " + principalName);
         }
 
-        OAuth2AccessToken accessToken = client.getAccessToken();
+        return client.getAccessToken();
+    }
 
+    private Mono<List<StravaActivity>> requestPage(OAuth2AccessToken accessToken, LocalDate after, LocalDate before,
+                                                   int perPage) {
         // Use UTC for API parameters, but we'll filter based on startDateLocal after fetching
         // Add buffer of 1 day on each side to account for timezone differences
         ZoneId utc = ZoneId.of("UTC");
@@ -65,28 +138,356 @@ public class StravaApiService {
                 .header("Authorization", "Bearer " + accessToken.getTokenValue())
                 .retrieve()
                 .bodyToFlux(StravaActivity.class)
-                .collectList()
-                .block();
+                .collectList();
+    }
+
+    /**
+     * One page, traced as a {@code strava.activities.page} span that covers every attempt and the backoff between
+     * them, with a {@code strava.activities.page.attempt} child per HTTP attempt (hedges included).
+     * <p>
+     * The attempts run as a non-blocking pipeline: each has its own timeout, a slow one may be hedged with a
+     * duplicate, the pair counts as one call on the athlete's circuit breaker, and failures are retried with
+     * jittered exponential backoff on a timer. Only the caller's thread waits, once, for the final result,
+     * holding a slot in the athlete's {@link FairUpstreamScheduler} lane while it does.
+     */
+    private List<StravaActivity> fetchPageWithResilience(String principalName, OAuth2AccessToken accessToken,
+                                                         LocalDate after, LocalDate before, int perPage, int pageNumber) {
+        Observation page = Observation.createNotStarted("strava.activities.page", observationRegistry)
+                .highCardinalityKeyValue("athlete", principalName)
+                .highCardinalityKeyValue("page", String.valueOf(pageNumber));
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<Mono<List<StravaActivity>>> request = () -> requestPage(accessToken, after, before, perPage);
+        return page.observe(() -> {
+            try {
+                Mono<List<StravaActivity>> attemptsWithRetry = Mono.defer(() -> hedgedAttempt(page, pageNumber, attempts, request))
+                        .transformDeferred(CircuitBreakerOperator.of(
+                                athleteCircuitBreakers.forAthlete(principalName)))
+                        .retryWhen(pageRetry());
+                // The page holds one of the athlete's scheduler slots throughout, so pages share its per-athlete limit
+                List<StravaActivity> activities = upstreamScheduler.executeOnCaller(principalName, attemptsWithRetry::block);
+                page.highCardinalityKeyValue("items", String.valueOf(activities != null ? activities.size() : 0));
+                return activities;
+            } finally {
+                page.highCardinalityKeyValue("attempts", String.valueOf(attempts.get()));
+            }
+        });
+    }
+
+    /**
+     * The attempt, hedged once it outlives the recent latency quantile. Both legs are treated alike: a leg
+     * that fails leaves the other to answer, and the pair fails, with the first failure, only when neither
+     * leg can. A primary failing before the hedge fires ends the pair at once.
+     */
+    private Mono<List<StravaActivity>> hedgedAttempt(Observation page, int pageNumber, AtomicInteger attempts,
+                                                     Supplier<Mono<List<StravaActivity>>> request) {
+        Mono<List<StravaActivity>> primary = observedAttempt(page, pageNumber, attempts, false, request);
+        Duration hedgeDelay = pageFetchPolicy.hedgeDelay();
+        if (hedgeDelay == null) {
+            return primary;
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Sinks.One<Boolean> primaryFailed = Sinks.one();
+        Mono<List<StravaActivity>> primaryLeg = primary
+                .doOnError(e -> {
+                    failure.compareAndSet(null, e);
+                    primaryFailed.tryEmitValue(true);
+                })
+                .onErrorResume(e -> Mono.empty());
+        Mono<List<StravaActivity>> hedgeLeg = Mono.delay(hedgeDelay)
+                .takeUntilOther(primaryFailed.asMono())
+                .then(Mono.defer(() -> failure.get() == null && pageFetchPolicy.allowHedge()
+                        ? observedAttempt(page, pageNumber, attempts, true, request)
+                        : Mono.<List<StravaActivity>>empty()))
+                .doOnError(e -> failure.compareAndSet(null, e))
+                .onErrorResume(e -> Mono.empty());
+        // The first answer wins and cancels the other leg; no answer at all means both legs failed
+        return timedOut(Flux.merge(primaryLeg, hedgeLeg).next()
+                        .switchIfEmpty(Mono.error(failure::get)),
+                hedgeDelay.plus(pageFetchPolicy.attemptTimeout()));
+    }
+
+    // Surfaces a timeout like any other transport failure: retryable, and a 503 if it persists
+    private static <T> Mono<T> timedOut(Mono<T> attempt, Duration timeout) {
+        return attempt.timeout(timeout)
+                .onErrorMap(TimeoutException.class, e -> new WebClientRequestException(e, HttpMethod.GET,
+                        URI.create("/athlete/activities"), HttpHeaders.EMPTY));
+    }
+
+    private Mono<List<StravaActivity>> observedAttempt(Observation page, int pageNumber, AtomicInteger attempts,
+                                                       boolean hedge, Supplier<Mono<List<StravaActivity>>> request) {
+        return Mono.defer(() -> {
+            Observation attempt = Observation.createNotStarted("strava.activities.page.attempt", observationRegistry)
+                    .parentObservation(page)
+                    .lowCardinalityKeyValue("hedge", String.valueOf(hedge))
+                    .highCardinalityKeyValue("page", String.valueOf(pageNumber))
+                    .highCardinalityKeyValue("attempt", String.valueOf(attempts.incrementAndGet()))
+                    .start();
+            long startedAt = System.nanoTime();
+            return timedOut(request.get(), pageFetchPolicy.attemptTimeout())
+                    .doOnSuccess(activities -> pageFetchPolicy.recordLatency(System.nanoTime() - startedAt))
+                    .doOnError(attempt::error)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            attempt.highCardinalityKeyValue("cancelled", "true"); // Lost to the other request
+                        }
+                        attempt.stop();
+                    });
+        });
+    }
+
+    // Same attempts, backoff and retryable exceptions as the stravaApi retry instance; an open circuit is final
+    private reactor.util.retry.Retry pageRetry() {
+        RetryConfig config = retry.getRetryConfig();
+        Duration firstBackoff = Duration.ofMillis(config.getIntervalBiFunction().apply(1, null));
+        return reactor.util.retry.Retry.backoff(config.getMaxAttempts() - 1, firstBackoff)
+                .jitter(pageFetchPolicy.retryJitter())
+                .filter(e -> !(e instanceof CallNotPermittedException) && config.getExceptionPredicate().test(e))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private <T> T withResilience(String principalName, Supplier<T> call) {
+        CircuitBreaker circuitBreaker = athleteCircuitBreakers.forAthlete(principalName);
+        Supplier<T> guarded = CircuitBreaker.decorateSupplier(circuitBreaker, call);
+        // Each attempt takes a fair turn on the upstream workers; backoff between attempts waits on the caller's thread
+        Supplier<T> scheduled = () -> upstreamScheduler.execute(principalName, guarded::get);
+        return Retry.decorateSupplier(retry, scheduled).get();
+    }
+
+    /**
+     * Time and distance streams of one activity, compactly encoded. Activities without streams (manual
+     * entries) come back as {@link ActivityStreams#EMPTY}. Each call takes a concurrency limiter permit.
+     *
+     * @throws ServiceOverloadedException when the limiter has no permit to spare
+     */
+    public ActivityStreams getActivityStreams(String principalName, long activityId) {
+        OAuth2AccessToken accessToken = loadAccessToken(principalName);
+        StravaStreamSet streams;
+        try (AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire()) {
+            streams = permit.run(() -> fetchStreams(principalName, accessToken, activityId));
+            permit.completed(1, false);
+        }
+        if (streams == null || streams.getTime() == null || streams.getDistance() == null
+                || streams.getTime().getData() == null || streams.getDistance().getData() == null) {
+            return ActivityStreams.EMPTY;
+        }
+        return ActivityStreams.encode(streams.getTime().getData(), streams.getDistance().getData());
+    }
+
+    private StravaStreamSet fetchStreams(String principalName, OAuth2AccessToken accessToken, long activityId) {
+        return withResilience(principalName, () -> webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/activities/{id}/streams")
+                        .queryParam("keys", "time,distance")
+                        .queryParam("key_by_type", true)
+                        .build(activityId))
+                .header("Authorization", "Bearer " + accessToken.getTokenValue())
+                .retrieve()
+                .bodyToMono(StravaStreamSet.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .block());
+    }
+
+    public ActivityFetchResult getAllActivities(String principalName, LocalDate after, LocalDate before) {
+        Observation observation = Observation.createNotStarted("strava.activities.fetch", observationRegistry);
+        return observation.observe(() -> {
+            ActivityFetchResult result = fetchAllActivities(principalName, after, before);
+            observation.lowCardinalityKeyValue("source", source(result))
+                    .lowCardinalityKeyValue("partial", String.valueOf(result.isPartial()))
+                    .highCardinalityKeyValue("pages", String.valueOf(result.getPagesFetched()))
+                    .highCardinalityKeyValue("items", String.valueOf(result.getActivities().size()));
+            return result;
+        });
+    }
+
+    private static String source(ActivityFetchResult result) {
+        if (result.isStale()) {
+            return "stale";
+        }
+        return result.getPagesFetched() == 0 ? "store" : "upstream";
+    }
+
+    private ActivityFetchResult fetchAllActivities(String principalName, LocalDate after, LocalDate before) {
+        LocalDate from = ActivityCoverage.start(after);
+        LocalDate to = ActivityCoverage.end(before, LocalDate.now());
+        if (from.isAfter(to)) {
+            return new ActivityFetchResult(List.of(), false, 0, Instant.now(), false); // Entirely in the future
+        }
+        ActivityCoverage.Lookup cached =
+                ActivityCoverage.lookup(readStore(storeKey(principalName)).orElse(null), from, to);
+        if (cached.complete() && cached.oldestFetchedAt() == null) {
+            // Held only in sealed ranges, which never go stale
+            return fromStore(new ActivitySnapshot(cached.activities(), Instant.now()), false);
+        }
+        ActivitySnapshot stored = cached.complete()
+                ? new ActivitySnapshot(cached.activities(), cached.oldestFetchedAt())
+                : null;
+        if (stored != null) {
+            Duration age = stored.age();
+            if (age.compareTo(storeFreshFor) < 0) {
+                logger.debug("Serving {} stored activities for user {}", stored.getActivities().size(), principalName);
+                return fromStore(stored, false);
+            }
+            if (age.compareTo(storeFreshFor.plus(staleWhileRevalidate)) < 0) {
+                logger.debug("Serving {} stale activities for user {} ({} old)", stored.getActivities().size(),
+                        principalName, age);
+                refreshInBackground(principalName, from, to, cached.unsealed());
+                return fromStore(stored, true);
+            }
+        }
+
+        // While the dates already held are fresh, only the missing ones are fetched; sealed dates never are
+        boolean heldFresh = cached.oldestFetchedAt() == null
+                || Duration.between(cached.oldestFetchedAt(), Instant.now()).compareTo(storeFreshFor) < 0;
+        List<ActivityCoverage.DateSpan> spans = heldFresh ? cached.gaps() : cached.unsealed();
+
+        // Only upstream fetches are limited, so store hits keep being served while Strava is slow
+        ActivityFetchResult fetched;
+        try (AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire()) {
+            fetched = permit.run(() -> fetchSpans(principalName, spans));
+            permit.completed(fetched.getPagesFetched(), fetched.isPartial());
+        } catch (ServiceOverloadedException e) {
+            if (stored == null) {
+                throw e;
+            }
+            return fromStore(stored, true);
+        }
+        if (fetched.isPartial() && stored != null) {
+            // The last complete history beats a truncated one; the next request resumes from the checkpoint
+            return fromStore(stored, true);
+        }
+        // Whatever was held outside the fetched spans: the fresh dates, or the sealed ones
+        List<StravaActivity> held = ActivityCoverage.outside(cached.activities(), spans);
+        if (held.isEmpty() && !(heldFresh && cached.oldestFetchedAt() != null)) {
+            return fetched;
+        }
+        logger.debug("Fetched {} date ranges for user {}, {} activities already held", spans.size(),
+                principalName, held.size());
+        List<StravaActivity> combined = new ArrayList<>(held);
+        combined.addAll(fetched.getActivities());
+        combined.sort(ActivityCoverage.NEWEST_FIRST);
+        Instant fetchedAt = heldFresh && cached.oldestFetchedAt() != null
+                ? cached.oldestFetchedAt()
+                : fetched.getFetchedAt();
+        return new ActivityFetchResult(combined, fetched.isPartial(), fetched.getPagesFetched(), fetchedAt, false);
+    }
+
+    private static ActivityFetchResult fromStore(ActivitySnapshot snapshot, boolean stale) {
+        return new ActivityFetchResult(snapshot.getActivities(), false, 0, snapshot.getFetchedAt(), stale);
+    }
+
+    /**
+     * Paginates each span and records the completed ones in the athlete's stored history.
+     */
+    private ActivityFetchResult fetchSpans(String principalName, List<ActivityCoverage.DateSpan> spans) {
+        List<StravaActivity> activities = new ArrayList<>();
+        Instant fetchedAt = Instant.now();
+        int pages = 0;
+        boolean partial = false;
+        for (ActivityCoverage.DateSpan span : spans) {
+            ActivityFetchResult result = paginate(principalName, upstreamAfter(span.start()), upstreamBefore(span.end()));
+            activities.addAll(result.getActivities());
+            fetchedAt = result.getFetchedAt().isBefore(fetchedAt) ? result.getFetchedAt() : fetchedAt;
+            pages += result.getPagesFetched();
+            partial |= result.isPartial();
+            if (!result.isPartial()) {
+                recordFetch(principalName, span.start(), span.end(), result);
+            }
+        }
+        activities.sort(ActivityCoverage.NEWEST_FIRST);
+        return new ActivityFetchResult(activities, partial, pages, fetchedAt, false);
+    }
+
+    private static LocalDate upstreamAfter(LocalDate start) {
+        return start.equals(LocalDate.MIN) ? null : start;
+    }
+
+    private static LocalDate upstreamBefore(LocalDate end) {
+        return end.isAfter(LocalDate.now()) ? null : end;
+    }
+
+    /**
+     * Merges a fetched span into the stored history. Read-merge-write is serialized per athlete on this node;
+     * a concurrent write from another node can drop a span, which only costs a later re-fetch.
+     */
+    private void recordFetch(String principalName, LocalDate from, LocalDate to, ActivityFetchResult result) {
+        String key = storeKey(principalName);
+        synchronized (historyLocks[Math.floorMod(principalName.hashCode(), historyLocks.length)]) {
+            ActivitySnapshot history = readStore(key).orElse(null);
+            writeStore(key, ActivityCoverage.merge(history, from, to, result.getActivities(), result.getFetchedAt()));
+        }
     }
 
-    private List<StravaActivity> getActivitiesFallback(String principalName, LocalDate after, LocalDate before, int perPage, Exception ex) {
-        logger.error("Fallback triggered for getActivities due to: {}", ex.getMessage());
-        return Collections.emptyList();
+    /**
+     * Re-fetches the unsealed spans of a stale range off the request thread. At most one refresh runs per
+     * range, at most {@code strava.store.max-concurrent-refreshes} run at once, and none start while the
+     * athlete's circuit is open; a skipped refresh is retried by the next request that finds the range stale.
+     */
+    private void refreshInBackground(String principalName, LocalDate from, LocalDate to,
+                                     List<ActivityCoverage.DateSpan> spans) {
+        String rangeKey = principalName + ':' + from + ':' + to;
+        CircuitBreaker circuitBreaker = athleteCircuitBreakers.forAthlete(principalName);
+        if (circuitBreaker.getState() == CircuitBreaker.State.OPEN || !refreshing.add(rangeKey)) {
+            return;
+        }
+        if (!refreshPermits.tryAcquire()) {
+            refreshing.remove(rangeKey);
+            return;
+        }
+        Thread.ofVirtual().name("strava-refresh").start(() -> {
+            try (AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire()) {
+                ActivityFetchResult result = permit.run(() -> Observation
+                        .createNotStarted("strava.activities.refresh", observationRegistry)
+                        .highCardinalityKeyValue("athlete", principalName)
+                        .observe(() -> fetchSpans(principalName, spans)));
+                permit.completed(result.getPagesFetched(), result.isPartial());
+            } catch (RuntimeException e) {
+                logger.warn("Background refresh failed for {}: {}", rangeKey, e.getMessage());
+            } finally {
+                refreshPermits.release();
+                refreshing.remove(rangeKey);
+            }
+        });
     }
 
-    public List<StravaActivity> getAllActivities(String principalName, LocalDate after, LocalDate before) {
+    private ActivityFetchResult paginate(String principalName, LocalDate after, LocalDate before) {
         // Strava API returns activities in reverse chronological order (newest first)
         // It only returns up to 200 activities per call. To get all activities, we need to
         // make multiple calls with adjusted date ranges, using the oldest activity's date
         // as the new 'before' date for the next call.
+        OAuth2AccessToken accessToken = loadAccessToken(principalName);
+        Instant startedAt = Instant.now();
         List<StravaActivity> allActivities = new ArrayList<>();
-        int perPage = 200; // Strava's max per page
+        int perPage = PER_PAGE;
         LocalDate currentBefore = before;
-        int maxIterations = 50; // Safety limit to prevent infinite loops
+        int maxIterations = MAX_PAGES;
         int iteration = 0;
+        int pagesFetched = 0;
+        boolean partial = false;
+
+        // Resume from the last successful page if a previous request for this range gave up part-way
+        PaginationCheckpointStore.Checkpoint checkpoint = checkpointStore.find(principalName, after, before).orElse(null);
+        if (checkpoint != null) {
+            logger.debug("Resuming pagination for user {} after {} pages", principalName, checkpoint.pagesFetched());
+            allActivities.addAll(checkpoint.activities());
+            currentBefore = checkpoint.nextBefore();
+            iteration = checkpoint.pagesFetched();
+            pagesFetched = checkpoint.pagesFetched();
+        }
 
         while (iteration < maxIterations) {
-            List<StravaActivity> pageActivities = getActivities(principalName, after, currentBefore, perPage);
+            List<StravaActivity> pageActivities;
+            try {
+                pageActivities = fetchPageWithResilience(principalName, accessToken, after, currentBefore, perPage,
+                        pagesFetched + 1);
+            } catch (RuntimeException ex) {
+                // Retries are exhausted or the circuit is open: keep what we have and let the next request resume here
+                logger.error("Giving up on page {} for user {}: {}", iteration + 1, principalName, ex.getMessage());
+                ResilienceFallbackEvent.emit(principalName, "partial-result", "page " + (iteration + 1) + ": " + ex);
+                checkpointStore.save(principalName, after, before, allActivities, currentBefore, pagesFetched);
+                partial = true;
+                break;
+            }
+            pagesFetched++;
 
             if (pageActivities == null || pageActivities.isEmpty()) {
                 break; // No more activities
@@ -114,15 +515,127 @@ public class StravaApiService {
             iteration++;
         }
 
+        if (!partial && checkpoint != null) {
+            checkpointStore.clear(principalName, after, before);
+        }
+
         // Filter activities based on startDateLocal to ensure we only include activities
         // that occurred within the specified date range in the athlete's local timezone
-        return allActivities.stream()
-            .filter(activity -> {
-                LocalDate activityDate = activity.getStartDateLocal().toLocalDate();
-                boolean afterCheck = after == null || !activityDate.isBefore(after);
-                boolean beforeCheck = before == null || !activityDate.isAfter(before);
-                return afterCheck && beforeCheck;
-            })
+        List<StravaActivity> filtered = allActivities.stream()
+            .filter(activity -> inLocalRange(activity, after, before))
             .toList();
+        return new ActivityFetchResult(filtered, partial, pagesFetched, startedAt, false);
+    }
+
+    private static boolean inLocalRange(StravaActivity activity, LocalDate after, LocalDate before) {
+        LocalDate activityDate = activity.getStartDateLocal().toLocalDate();
+        boolean afterCheck = after == null || !activityDate.isBefore(after);
+        boolean beforeCheck = before == null || !activityDate.isAfter(before);
+        return afterCheck && beforeCheck;
+    }
+
+    /**
+     * Opens a page-at-a-time cursor over the athlete's history, bypassing the activity store, for callers
+     * that must not hold the whole history in memory. The access token is checked up front, so a missing
+     * authorization fails here rather than on the first page.
+     */
+    public ActivityCursor openCursor(String principalName, LocalDate after, LocalDate before) {
+        return new ActivityCursor(principalName, loadAccessToken(principalName), after, before);
+    }
+
+    /**
+     * Walks the same date cursor as {@link #getAllActivities}, one upstream page per {@link #nextPage} call.
+     */
+    public final class ActivityCursor {
+        private final String principalName;
+        private final OAuth2AccessToken accessToken;
+        private final LocalDate after;
+        private final LocalDate before;
+        private LocalDate currentBefore;
+        private int pagesFetched;
+        private boolean exhausted;
+        private Set<Long> previousPageIds = Set.of();
+
+        private ActivityCursor(String principalName, OAuth2AccessToken accessToken, LocalDate after, LocalDate before) {
+            this.principalName = principalName;
+            this.accessToken = accessToken;
+            this.after = after;
+            this.before = before;
+            this.currentBefore = before;
+        }
+
+        /**
+         * Next batch of in-range activities, newest first; empty once the history is exhausted.
+         * Upstream failures propagate after the usual retry and circuit breaker handling, and a
+         * {@link ServiceOverloadedException} when the concurrency limiter sheds the page.
+         */
+        public List<StravaActivity> nextPage() {
+            while (!exhausted) {
+                if (pagesFetched >= MAX_PAGES) {
+                    exhausted = true;
+                    break;
+                }
+                List<StravaActivity> page = fetchLimitedPage();
+                pagesFetched++;
+                if (page == null || page.isEmpty()) {
+                    exhausted = true;
+                    break;
+                }
+                if (page.size() < PER_PAGE) {
+                    exhausted = true;
+                } else {
+                    LocalDate oldest = page.get(page.size() - 1).getStartDateLocal().toLocalDate();
+                    exhausted = after != null && !oldest.isAfter(after);
+                    currentBefore = oldest.minusDays(1);
+                }
+
+                // The one-day cursor buffer re-fetches the previous page's oldest day; skip those repeats
+                Set<Long> pageIds = new HashSet<>();
+                List<StravaActivity> batch = new ArrayList<>(page.size());
+                for (StravaActivity activity : page) {
+                    pageIds.add(activity.getId());
+                    if (!previousPageIds.contains(activity.getId()) && inLocalRange(activity, after, before)) {
+                        batch.add(activity);
+                    }
+                }
+                previousPageIds = pageIds;
+                if (!batch.isEmpty()) {
+                    return batch;
+                }
+            }
+            return List.of();
+        }
+
+        // One limiter permit per page, so a long or slowly consumed export never holds one for its duration
+        private List<StravaActivity> fetchLimitedPage() {
+            try (AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire()) {
+                List<StravaActivity> page = permit.run(() -> fetchPageWithResilience(principalName, accessToken,
+                        after, currentBefore, PER_PAGE, pagesFetched + 1));
+                permit.completed(1, false);
+                return page;
+            }
+        }
+    }
+
+    private Optional<ActivitySnapshot> readStore(String key) {
+        try {
+            return activityStore.get(key);
+        } catch (RuntimeException e) {
+            // A store outage degrades to fetching from Strava rather than failing the request
+            logger.warn("Activity store read failed for {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeStore(String key, ActivitySnapshot snapshot) {
+        try {
+            activityStore.put(key, snapshot, ActivityCoverage.retention(snapshot, storeRetention));
+        } catch (RuntimeException e) {
+            logger.warn("Activity store write failed for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static String storeKey(String principalName) {
+        return ActivityCoverage.historyKey(principalName);
     }
 }
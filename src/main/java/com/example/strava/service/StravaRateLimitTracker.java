@@ -0,0 +1,84 @@
+package com.example.strava.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Application-wide Strava request budget, read from the rate limit headers on every upstream response.
+ * <p>
+ * Strava reports a 15-minute and a daily window as {@code short,daily} pairs; the read-specific
+ * {@code X-ReadRateLimit-*} headers are preferred when present. Usage is forgotten once its window has
+ * rolled over (quarter hours and midnight UTC), so a quiet period restores the full budget.
+ */
+@Component
+public class StravaRateLimitTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(StravaRateLimitTracker.class);
+
+    private record Snapshot(int shortLimit, int shortUsage, int dailyLimit, int dailyUsage, Instant observedAt) {
+    }
+
+    private final Clock clock;
+    private volatile Snapshot snapshot;
+
+    public StravaRateLimitTracker() {
+        this(Clock.systemUTC());
+    }
+
+    StravaRateLimitTracker(Clock clock) {
+        this.clock = clock;
+    }
+
+    public void record(HttpHeaders headers) {
+        String limit = headers.getFirst("X-ReadRateLimit-Limit");
+        String usage = headers.getFirst("X-ReadRateLimit-Usage");
+        if (limit == null || usage == null) {
+            limit = headers.getFirst("X-RateLimit-Limit");
+            usage = headers.getFirst("X-RateLimit-Usage");
+        }
+        if (limit == null || usage == null) {
+            return;
+        }
+        try {
+            String[] limits = limit.split(",");
+            String[] usages = usage.split(",");
+            snapshot = new Snapshot(Integer.parseInt(limits[0].trim()), Integer.parseInt(usages[0].trim()),
+                    Integer.parseInt(limits[1].trim()), Integer.parseInt(usages[1].trim()), clock.instant());
+        } catch (RuntimeException e) {
+            logger.debug("Ignoring unparseable rate limit headers {} / {}", limit, usage);
+        }
+    }
+
+    /**
+     * Whether more than {@code reserveFraction} of both windows is still unused, leaving the reserve for
+     * interactive requests. True until a response has reported usage.
+     */
+    public boolean hasHeadroom(double reserveFraction) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return true;
+        }
+        Instant now = clock.instant();
+        int shortUsage = sameQuarterHour(current.observedAt(), now) ? current.shortUsage() : 0;
+        int dailyUsage = sameUtcDay(current.observedAt(), now) ? current.dailyUsage() : 0;
+        return shortUsage < current.shortLimit() * (1 - reserveFraction)
+                && dailyUsage < current.dailyLimit() * (1 - reserveFraction);
+    }
+
+    private static boolean sameQuarterHour(Instant a, Instant b) {
+        long quarter = ChronoUnit.MINUTES.getDuration().toSeconds() * 15;
+        return a.getEpochSecond() / quarter == b.getEpochSecond() / quarter;
+    }
+
+    private static boolean sameUtcDay(Instant a, Instant b) {
+        return LocalDate.ofInstant(a, ZoneOffset.UTC).equals(LocalDate.ofInstant(b, ZoneOffset.UTC));
+    }
+}
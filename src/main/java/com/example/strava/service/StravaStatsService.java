@@ -2,6 +2,8 @@ package com.example.strava.service;
 
 import com.example.strava.dto.SummaryStatsDto;
 import com.example.strava.model.*;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -9,8 +11,11 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.WeekFields;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+// Each call from a controller or another service is traced as a strava.stats span named after the method
+@Observed(name = "strava.stats")
 @Service
 public class StravaStatsService {
 
@@ -18,7 +23,24 @@ public class StravaStatsService {
     private static final double METERS_TO_FEET = 3.28084;
     private static final double METERS_PER_SECOND_TO_MILES_PER_HOUR = 2.23694;
 
+    // Defaults of strava.stats.*, shared with callers that build the service outside Spring
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 5000;
+    public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 1024;
+
+    private final int parallelThreshold;
+    private final int parallelChunkSize;
+
+    public StravaStatsService(
+            @Value("${strava.stats.parallel-threshold:" + DEFAULT_PARALLEL_THRESHOLD + "}") int parallelThreshold,
+            @Value("${strava.stats.parallel-chunk-size:" + DEFAULT_PARALLEL_CHUNK_SIZE + "}") int parallelChunkSize) {
+        this.parallelThreshold = parallelThreshold;
+        this.parallelChunkSize = parallelChunkSize;
+    }
+
     public SummaryStatsDto getSummaryStats(List<StravaActivity> activities) {
+        if (aggregateInParallel(activities)) {
+            return getSummaryStats(aggregate(activities));
+        }
         int totalActivities = activities.size();
         int totalMovingTime = activities.stream()
                 .mapToInt(a -> a.getMovingTime() != null ? a.getMovingTime() : 0)
@@ -26,16 +48,27 @@ public class StravaStatsService {
         return new SummaryStatsDto(totalActivities, totalMovingTime);
     }
 
+    public SummaryStatsDto getSummaryStats(ActivityAggregate aggregate) {
+        return new SummaryStatsDto((int) aggregate.getActivityCount(), (int) aggregate.getTotalMovingTime());
+    }
+
     public List<ActivityCountDto> getActivityCountDistribution(List<StravaActivity> activities) {
-        long total = activities.size();
-        if (total == 0) return Collections.emptyList();
+        if (activities.isEmpty()) return Collections.emptyList();
 
-        Map<String, Long> counts = activities.stream()
+        Map<String, Long> counts = aggregateInParallel(activities) ? aggregate(activities).getCountByType() : activities.stream()
                 .collect(Collectors.groupingBy(
                         a -> a.getSportType() != null ? a.getSportType() : a.getType(),
                         Collectors.counting()
                 ));
+        return activityCountDistribution(counts, activities.size());
+    }
+
+    public List<ActivityCountDto> getActivityCountDistribution(ActivityAggregate aggregate) {
+        if (aggregate.getActivityCount() == 0) return Collections.emptyList();
+        return activityCountDistribution(aggregate.getCountByType(), aggregate.getActivityCount());
+    }
 
+    private List<ActivityCountDto> activityCountDistribution(Map<String, Long> counts, long total) {
         return counts.entrySet().stream()
                 .map(entry -> new ActivityCountDto(
                         entry.getKey(),
@@ -47,12 +80,19 @@ public class StravaStatsService {
     }
 
     public List<TimeDistributionDto> getTimeDistribution(List<StravaActivity> activities) {
-        Map<String, Integer> timeByType = activities.stream()
+        Map<String, Integer> timeByType = aggregateInParallel(activities) ? aggregate(activities).getMovingTimeByType() : activities.stream()
                 .collect(Collectors.groupingBy(
                         a -> a.getSportType() != null ? a.getSportType() : a.getType(),
                         Collectors.summingInt(a -> a.getMovingTime() != null ? a.getMovingTime() : 0)
                 ));
+        return timeDistribution(timeByType);
+    }
+
+    public List<TimeDistributionDto> getTimeDistribution(ActivityAggregate aggregate) {
+        return timeDistribution(aggregate.getMovingTimeByType());
+    }
 
+    private List<TimeDistributionDto> timeDistribution(Map<String, Integer> timeByType) {
         int totalSeconds = timeByType.values().stream().mapToInt(Integer::intValue).sum();
         if (totalSeconds == 0) return Collections.emptyList();
 
@@ -67,8 +107,15 @@ public class StravaStatsService {
                 .collect(Collectors.toList());
     }
 
+    public PunchCardDto getPunchCard(List<StravaActivity> activities, String sportType) {
+        PunchCard card = aggregateInParallel(activities)
+                ? PunchCard.parallel(activities, sportType)
+                : PunchCard.of(activities, sportType);
+        return card.toDto();
+    }
+
     public List<HeatmapDataDto> getWorkoutHeatmapData(List<StravaActivity> activities) {
-        Map<LocalDate, Double> dailyHours = activities.stream()
+        Map<LocalDate, Double> dailyHours = aggregateInParallel(activities) ? aggregate(activities).getDailyHours() : activities.stream()
                 .collect(Collectors.groupingBy(
                         a -> a.getStartDateLocal().toLocalDate(),
                         Collectors.summingDouble(a -> (a.getMovingTime() != null ? a.getMovingTime() : 0) / 3600.0)
@@ -84,13 +131,31 @@ public class StravaStatsService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Rejects an after/before range too long for a compact heatmap; call before fetching the activities.
+     */
+    public void validateCompactHeatmapRange(LocalDate after, LocalDate before) {
+        CompactHeatmap.checkRequestedRange(after, before, LocalDate.now());
+    }
+
+    /**
+     * {@link #getWorkoutHeatmapData} as dense arrays over {@code after..before}, defaulting to the active days' span.
+     */
+    public CompactHeatmapDto getWorkoutHeatmapCompact(List<StravaActivity> activities, LocalDate after, LocalDate before) {
+        return CompactHeatmap.encode(activities, a -> true,
+                a -> (a.getMovingTime() != null ? a.getMovingTime() : 0) / 3600.0,
+                after, before, 0, 1, 2, 3);
+    }
+
     public WorkoutHeatmapDto getWorkoutHeatmapSummary(List<StravaActivity> activities, LocalDate referenceDate, LocalDate rangeStartFilter) {
         if (referenceDate == null) referenceDate = LocalDate.now();
 
         // Build a sorted unique set of dates with any activity
-        final NavigableSet<LocalDate> activityDates = activities.stream()
-                .map(a -> a.getStartDateLocal().toLocalDate())
-                .collect(Collectors.toCollection(TreeSet::new));
+        final NavigableSet<LocalDate> activityDates = aggregateInParallel(activities)
+                ? new TreeSet<>(aggregate(activities).getDailyHours().keySet())
+                : activities.stream()
+                        .map(a -> a.getStartDateLocal().toLocalDate())
+                        .collect(Collectors.toCollection(TreeSet::new));
 
         if (activityDates.isEmpty()) {
             LocalDate rangeStart = rangeStartFilter != null ? rangeStartFilter : referenceDate;
@@ -200,22 +265,16 @@ public class StravaStatsService {
     }
 
     public RunStatsDto getRunStatistics(List<StravaActivity> activities) {
+        if (aggregateInParallel(activities)) {
+            return getRunStatistics(aggregate(activities));
+        }
         List<StravaActivity> runs = activities.stream()
                 .filter(a -> "Run".equalsIgnoreCase(a.getType()) ||
                            (a.getSportType() != null && a.getSportType().toLowerCase().contains("run")))
                 .collect(Collectors.toList());
 
         if (runs.isEmpty()) {
-            return RunStatsDto.builder()
-                    .totalRuns(0)
-                    .runs10KPlus(0)
-                    .totalMiles(0)
-                    .averagePace("00:00")
-                    .fastestMileSplit("00:00")
-                    .fastest10K("00:00")
-                    .longestRun(0)
-                    .mostElevation(0)
-                    .build();
+            return emptyRunStatistics();
         }
 
         int totalRuns = runs.size();
@@ -267,42 +326,21 @@ public class StravaStatsService {
     }
 
     public List<RunDistributionDto> getRunDistribution(List<StravaActivity> activities) {
-        List<StravaActivity> runs = activities.stream()
-                .filter(a -> "Run".equalsIgnoreCase(a.getType()) ||
-                           (a.getSportType() != null && a.getSportType().toLowerCase().contains("run")))
-                .collect(Collectors.toList());
-
-        // Define distance ranges in miles
-        String[] ranges = {"0-1", "1-2", "2-3", "3-4", "4-5", "5-6", "6-7", "7-8", "8-9", "9-10"};
-        Map<String, Long> distribution = new LinkedHashMap<>();
-        for (String range : ranges) {
-            distribution.put(range, 0L);
-        }
+        return getDistribution(activities, ActivityHistogram.Spec.RUN_MILES);
+    }
 
-        // Count runs in each range
-        for (StravaActivity run : runs) {
-            if (run.getDistance() != null) {
-                double miles = run.getDistance() * METERS_TO_MILES;
-                int bucket = (int) miles; // floor to get the range
-                if (bucket >= 0 && bucket < 10) {
-                    String range = bucket + "-" + (bucket + 1);
-                    distribution.put(range, distribution.getOrDefault(range, 0L) + 1);
-                }
-            }
-        }
+    public List<RunDistributionDto> getDistribution(List<StravaActivity> activities, ActivityHistogram.Spec spec) {
+        return ActivityHistogram.compute(activities, spec);
+    }
 
-        return distribution.entrySet().stream()
-                .map(entry -> new RunDistributionDto(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList());
+    public List<QueryRowDto> query(List<StravaActivity> activities, StatsQuery query) {
+        return query.execute(activities);
     }
 
     public List<HeatmapDataDto> getRunningHeatmap(List<StravaActivity> activities) {
-        List<StravaActivity> runs = activities.stream()
+        Map<LocalDate, Double> dailyMiles = aggregateInParallel(activities) ? aggregate(activities).getRunDailyMiles() : activities.stream()
                 .filter(a -> "Run".equalsIgnoreCase(a.getType()) ||
                            (a.getSportType() != null && a.getSportType().toLowerCase().contains("run")))
-                .collect(Collectors.toList());
-
-        Map<LocalDate, Double> dailyMiles = runs.stream()
                 .collect(Collectors.groupingBy(
                         a -> a.getStartDateLocal().toLocalDate(),
                         Collectors.summingDouble(a -> (a.getDistance() != null ? a.getDistance() : 0) * METERS_TO_MILES)
@@ -318,7 +356,19 @@ public class StravaStatsService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * {@link #getRunningHeatmap} as dense arrays over {@code after..before}, defaulting to the run days' span.
+     */
+    public CompactHeatmapDto getRunningHeatmapCompact(List<StravaActivity> activities, LocalDate after, LocalDate before) {
+        return CompactHeatmap.encode(activities, ActivityAggregate::isRun,
+                a -> (a.getDistance() != null ? a.getDistance() : 0) * METERS_TO_MILES,
+                after, before, 0, 3, 6, 10);
+    }
+
     public List<TrendDataDto> getMileageTrend(List<StravaActivity> activities, String period) {
+        if (aggregateInParallel(activities)) {
+            return getMileageTrend(aggregate(activities), period);
+        }
         List<StravaActivity> runs = activities.stream()
                 .filter(a -> "Run".equalsIgnoreCase(a.getType()) ||
                            (a.getSportType() != null && a.getSportType().toLowerCase().contains("run")))
@@ -337,6 +387,9 @@ public class StravaStatsService {
     }
 
     public List<TrendDataDto> getPaceTrend(List<StravaActivity> activities, String period) {
+        if (aggregateInParallel(activities)) {
+            return getPaceTrend(aggregate(activities), period);
+        }
         List<StravaActivity> runs = activities.stream()
                 .filter(a -> "Run".equalsIgnoreCase(a.getType()) ||
                            (a.getSportType() != null && a.getSportType().toLowerCase().contains("run")))
@@ -354,6 +407,91 @@ public class StravaStatsService {
         }
     }
 
+    public List<TrendDataDto> getMileageTrend(ActivityAggregate aggregate, String period) {
+        return trendFromDailyTotals(aggregate.getRunDailyMiles(), aggregate.getRunDailySeconds(), period, false);
+    }
+
+    public List<TrendDataDto> getPaceTrend(ActivityAggregate aggregate, String period) {
+        return trendFromDailyTotals(aggregate.getRunDailyMiles(), aggregate.getRunDailySeconds(), period, true);
+    }
+
+    public RunStatsDto getRunStatistics(ActivityAggregate aggregate) {
+        if (aggregate.getTotalRuns() == 0) {
+            return emptyRunStatistics();
+        }
+        return RunStatsDto.builder()
+                .totalRuns(aggregate.getTotalRuns())
+                .runs10KPlus(aggregate.getRuns10KPlus())
+                .totalMiles(Math.round(aggregate.getRunMiles() * 100.0) / 100.0)
+                .averagePace(calculatePace(aggregate.getRunMiles(), aggregate.getRunSeconds()))
+                .fastestMileSplit(aggregate.hasMileRun() ? calculatePace(1, aggregate.getFastestMilePace()) : "00:00")
+                .fastest10K(aggregate.has10KRun() ? formatTime(aggregate.getFastest10KSeconds()) : "00:00")
+                .longestRun(Math.round(aggregate.getLongestRunMiles() * 100.0) / 100.0)
+                .mostElevation(Math.round(aggregate.getMostElevationFeet()))
+                .build();
+    }
+
+    // Parallel aggregation: large histories are reduced on the fork-join pool, then turned into the same DTOs
+    private boolean aggregateInParallel(List<StravaActivity> activities) {
+        return activities.size() >= parallelThreshold;
+    }
+
+    private ActivityAggregate aggregate(List<StravaActivity> activities) {
+        return ActivityAggregate.parallel(activities, parallelChunkSize);
+    }
+
+    private RunStatsDto emptyRunStatistics() {
+        return RunStatsDto.builder()
+                .totalRuns(0)
+                .runs10KPlus(0)
+                .totalMiles(0)
+                .averagePace("00:00")
+                .fastestMileSplit("00:00")
+                .fastest10K("00:00")
+                .longestRun(0)
+                .mostElevation(0)
+                .build();
+    }
+
+    private List<TrendDataDto> trendFromDailyTotals(Map<LocalDate, Double> dailyMiles, Map<LocalDate, Double> dailySeconds,
+                                                    String period, boolean pace) {
+        Function<LocalDate, String> label = periodLabel(period);
+        if (label == null) return Collections.emptyList();
+
+        Map<String, double[]> totals = new HashMap<>();
+        dailyMiles.forEach((day, miles) -> {
+            double[] bucket = totals.computeIfAbsent(label.apply(day), k -> new double[2]);
+            bucket[0] += miles;
+            bucket[1] += dailySeconds.getOrDefault(day, 0.0);
+        });
+
+        return totals.entrySet().stream()
+                .map(entry -> {
+                    if (!pace) {
+                        return new TrendDataDto(entry.getKey(), entry.getValue()[0], String.format("%.2f mi", entry.getValue()[0]));
+                    }
+                    String formatted = calculatePace(entry.getValue()[0], entry.getValue()[1]);
+                    return new TrendDataDto(entry.getKey(), parsePaceToSeconds(formatted), formatted + " /mi");
+                })
+                .sorted(Comparator.comparing(TrendDataDto::getLabel))
+                .collect(Collectors.toList());
+    }
+
+    static Function<LocalDate, String> periodLabel(String period) {
+        switch (period.toLowerCase()) {
+            case "daily":
+                return LocalDate::toString;
+            case "weekly":
+                WeekFields weekFields = WeekFields.of(Locale.getDefault());
+                return date -> date.get(weekFields.weekBasedYear()) + "-W" + String.format("%02d", date.get(weekFields.weekOfWeekBasedYear()));
+            case "monthly":
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
+                return date -> date.format(formatter);
+            default:
+                return null;
+        }
+    }
+
     // Helper methods
     private String formatTime(Integer seconds) {
         if (seconds == null || seconds == 0) return "00:00";
@@ -370,7 +508,7 @@ public class StravaStatsService {
         return String.format("%02d:%02d", minutes, secs);
     }
 
-    private int calculateIntensity(double value, double... thresholds) {
+    static int calculateIntensity(double value, double... thresholds) {
         for (int i = 0; i < thresholds.length; i++) {
             if (value <= thresholds[i]) return i;
         }
@@ -0,0 +1,175 @@
+package com.example.strava.service;
+
+import com.example.strava.config.TeamProperties;
+import com.example.strava.model.LeaderboardEntryDto;
+import com.example.strava.model.RunStatsDto;
+import com.example.strava.model.TeamStatsDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Team views built by merging each member's cached {@link ActivityAggregate} rather than re-aggregating
+ * their raw activities. Members are looked up by athlete id, so each must have logged in at least once
+ * for their Strava token to be available.
+ */
+@Service
+public class TeamStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TeamStatsService.class);
+
+    private enum LeaderboardMetric {
+        TOTAL_MILES("total-miles", false, ActivityAggregate::getRunMiles, s -> String.format("%.2f mi", s.getTotalMiles())),
+        TOTAL_RUNS("total-runs", false, a -> (double) a.getTotalRuns(), s -> String.valueOf(s.getTotalRuns())),
+        RUNS_10K_PLUS("runs-10k-plus", false, a -> (double) a.getRuns10KPlus(), s -> String.valueOf(s.getRuns10KPlus())),
+        LONGEST_RUN("longest-run", false, ActivityAggregate::getLongestRunMiles, s -> String.format("%.2f mi", s.getLongestRun())),
+        MOST_ELEVATION("most-elevation", false, ActivityAggregate::getMostElevationFeet, s -> String.format("%.0f ft", s.getMostElevation())),
+        // Lower is better; athletes without a qualifying run are left off the board
+        AVERAGE_PACE("average-pace", true, a -> a.getRunMiles() > 0 ? a.getRunSeconds() / a.getRunMiles() : null, s -> s.getAveragePace() + " /mi"),
+        FASTEST_MILE("fastest-mile", true, a -> a.hasMileRun() ? a.getFastestMilePace() : null, s -> s.getFastestMileSplit() + " /mi"),
+        FASTEST_10K("fastest-10k", true, a -> a.has10KRun() ? (double) a.getFastest10KSeconds() : null, RunStatsDto::getFastest10K);
+
+        private final String param;
+        private final boolean ascending;
+        private final Function<ActivityAggregate, Double> value;
+        private final Function<RunStatsDto, String> format;
+
+        LeaderboardMetric(String param, boolean ascending, Function<ActivityAggregate, Double> value, Function<RunStatsDto, String> format) {
+            this.param = param;
+            this.ascending = ascending;
+            this.value = value;
+            this.format = format;
+        }
+
+        static LeaderboardMetric fromParam(String param) {
+            for (LeaderboardMetric metric : values()) {
+                if (metric.param.equalsIgnoreCase(param)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Unknown leaderboard metric: " + param);
+        }
+    }
+
+    private record MemberAggregates(Map<String, ActivityAggregate> aggregates, List<String> unavailable, boolean partial,
+                                    boolean stale, Instant fetchedAt) {
+    }
+
+    /**
+     * A ranked leaderboard; {@code partial}, {@code stale} and {@code fetchedAt} cover every member's history.
+     */
+    public record Leaderboard(List<LeaderboardEntryDto> entries, boolean partial, boolean stale, Instant fetchedAt) {
+    }
+
+    private final TeamProperties teamProperties;
+    private final AthleteAggregateCache aggregateCache;
+    private final StravaStatsService statsService;
+
+    public TeamStatsService(TeamProperties teamProperties, AthleteAggregateCache aggregateCache, StravaStatsService statsService) {
+        this.teamProperties = teamProperties;
+        this.aggregateCache = aggregateCache;
+        this.statsService = statsService;
+    }
+
+    public TeamStatsDto getTeamStats(String teamId, String requesterId, LocalDate after, LocalDate before, String period) {
+        List<String> members = membersVisibleTo(teamId, requesterId);
+        MemberAggregates loaded = loadMembers(members, after, before);
+        ActivityAggregate team = ActivityAggregate.mergeAll(loaded.aggregates().values());
+
+        return TeamStatsDto.builder()
+                .teamId(teamId)
+                .memberCount(members.size())
+                .includedMembers(loaded.aggregates().size())
+                .unavailableMembers(loaded.unavailable())
+                .partial(loaded.partial())
+                .stale(loaded.stale())
+                .ageSeconds(Duration.between(loaded.fetchedAt(), Instant.now()).toSeconds())
+                .summary(statsService.getSummaryStats(team))
+                .activityCounts(statsService.getActivityCountDistribution(team))
+                .timeDistribution(statsService.getTimeDistribution(team))
+                .runStatistics(statsService.getRunStatistics(team))
+                .mileageTrend(statsService.getMileageTrend(team, period))
+                .build();
+    }
+
+    public Leaderboard getLeaderboard(String teamId, String requesterId, LocalDate after, LocalDate before, String metricParam) {
+        LeaderboardMetric metric = LeaderboardMetric.fromParam(metricParam);
+        MemberAggregates loaded = loadMembers(membersVisibleTo(teamId, requesterId), after, before);
+
+        Comparator<Map.Entry<String, Double>> byValue = Map.Entry.comparingByValue();
+        List<Map.Entry<String, Double>> ranked = loaded.aggregates().entrySet().stream()
+                .filter(e -> metric.value.apply(e.getValue()) != null)
+                .map(e -> Map.entry(e.getKey(), metric.value.apply(e.getValue())))
+                .sorted(metric.ascending ? byValue : byValue.reversed())
+                .toList();
+
+        List<LeaderboardEntryDto> leaderboard = new ArrayList<>(ranked.size());
+        for (Map.Entry<String, Double> entry : ranked) {
+            RunStatsDto runStats = statsService.getRunStatistics(loaded.aggregates().get(entry.getKey()));
+            leaderboard.add(new LeaderboardEntryDto(leaderboard.size() + 1, entry.getKey(), entry.getValue(), metric.format.apply(runStats)));
+        }
+        return new Leaderboard(leaderboard, loaded.partial(), loaded.stale(), loaded.fetchedAt());
+    }
+
+    private List<String> membersVisibleTo(String teamId, String requesterId) {
+        List<String> members = teamProperties.getMembers().get(teamId);
+        if (members == null) {
+            throw new IllegalArgumentException("Unknown team: " + teamId);
+        }
+        if (!members.contains(requesterId)) {
+            throw new AccessDeniedException("Not a member of team " + teamId);
+        }
+        return members;
+    }
+
+    /**
+     * Loads member aggregates concurrently on virtual threads; cache misses block on upstream fetches, which
+     * the upstream scheduler already keeps fair and bounded.
+     */
+    private MemberAggregates loadMembers(List<String> members, LocalDate after, LocalDate before) {
+        Map<String, Future<AthleteAggregateCache.Result>> futures = new LinkedHashMap<>();
+        Map<String, ActivityAggregate> aggregates = new LinkedHashMap<>();
+        List<String> unavailable = new ArrayList<>();
+        boolean partial = false;
+        boolean stale = false;
+        Instant fetchedAt = Instant.now();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String member : members) {
+                futures.put(member, executor.submit(() -> aggregateCache.get(member, after, before)));
+            }
+            for (Map.Entry<String, Future<AthleteAggregateCache.Result>> entry : futures.entrySet()) {
+                try {
+                    AthleteAggregateCache.Result result = entry.getValue().get();
+                    aggregates.put(entry.getKey(), result.aggregate());
+                    partial |= result.partial();
+                    stale |= result.stale();
+                    fetchedAt = result.fetchedAt().isBefore(fetchedAt) ? result.fetchedAt() : fetchedAt;
+                } catch (ExecutionException e) {
+                    logger.warn("Skipping team member {}: {}", entry.getKey(), e.getCause().getMessage());
+                    unavailable.add(entry.getKey());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while loading team members");
+        }
+        return new MemberAggregates(aggregates, unavailable, partial, stale, fetchedAt);
+    }
+}
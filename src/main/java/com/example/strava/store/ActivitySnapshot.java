@@ -0,0 +1,25 @@
+package com.example.strava.store;
+
+import com.example.strava.model.StravaActivity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ActivitySnapshot {
+    private List<StravaActivity> activities;
+    private Instant fetchedAt;
+    private List<CoveredRange> coverage; // date ranges the activities are complete for; empty when unknown
+
+    public ActivitySnapshot(List<StravaActivity> activities, Instant fetchedAt) {
+        this(activities, fetchedAt, List.of());
+    }
+
+    public Duration age() {
+        return Duration.between(fetchedAt, Instant.now());
+    }
+}
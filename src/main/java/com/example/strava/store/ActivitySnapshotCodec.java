@@ -0,0 +1,212 @@
+package com.example.strava.store;
+
+import com.example.strava.model.StravaActivity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of an {@link ActivitySnapshot}, used by every {@link ActivityStore} backend.
+ * <p>
+ * Layout: version byte, fetched-at millis, a string dictionary (sport types, types and zone ids repeat
+ * across a history), then one record per activity: a presence bitmask followed by the non-null fields.
+ * Integers are varint encoded and timestamps stored as epoch seconds plus a dictionary zone id, so a
+ * typical activity takes 50-70 bytes instead of ~400 bytes of JSON. Version 2 appends the covered date
+ * ranges as epoch days plus fetched-at millis, and version 3 a sealed flag per range; version 1 payloads
+ * decode with no coverage and version 2 ranges as unsealed.
+ */
+public final class ActivitySnapshotCodec {
+
+    private static final byte VERSION = 3;
+
+    private static final int ID = 1;
+    private static final int NAME = 1 << 1;
+    private static final int SPORT_TYPE = 1 << 2;
+    private static final int TYPE = 1 << 3;
+    private static final int DISTANCE = 1 << 4;
+    private static final int MOVING_TIME = 1 << 5;
+    private static final int ELAPSED_TIME = 1 << 6;
+    private static final int ELEVATION = 1 << 7;
+    private static final int START_DATE = 1 << 8;
+    private static final int START_DATE_LOCAL = 1 << 9;
+    private static final int AVERAGE_SPEED = 1 << 10;
+    private static final int MAX_SPEED = 1 << 11;
+
+    private ActivitySnapshotCodec() {
+    }
+
+    public static byte[] encode(ActivitySnapshot snapshot) {
+        List<StravaActivity> activities = snapshot.getActivities();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        for (StravaActivity activity : activities) {
+            intern(activity.getSportType(), dictionary, words);
+            intern(activity.getType(), dictionary, words);
+            if (activity.getStartDate() != null) intern(activity.getStartDate().getZone().getId(), dictionary, words);
+            if (activity.getStartDateLocal() != null) intern(activity.getStartDateLocal().getZone().getId(), dictionary, words);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + activities.size() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(snapshot.getFetchedAt().toEpochMilli());
+            writeVarLong(out, words.size());
+            for (String word : words) {
+                out.writeUTF(word);
+            }
+            writeVarLong(out, activities.size());
+            for (StravaActivity activity : activities) {
+                writeActivity(out, activity, dictionary);
+            }
+            writeVarLong(out, snapshot.getCoverage().size());
+            for (CoveredRange range : snapshot.getCoverage()) {
+                writeZigZag(out, range.start().toEpochDay());
+                writeZigZag(out, range.end().toEpochDay());
+                out.writeLong(range.fetchedAt().toEpochMilli());
+                out.writeBoolean(range.sealed());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static ActivitySnapshot decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version < 1 || version > VERSION) {
+                throw new IllegalArgumentException("Unsupported activity snapshot version: " + version);
+            }
+            Instant fetchedAt = Instant.ofEpochMilli(in.readLong());
+            int wordCount = (int) readVarLong(in);
+            String[] words = new String[wordCount];
+            for (int i = 0; i < wordCount; i++) {
+                words[i] = in.readUTF();
+            }
+            int count = (int) readVarLong(in);
+            List<StravaActivity> activities = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                activities.add(readActivity(in, words));
+            }
+            List<CoveredRange> coverage = new ArrayList<>();
+            if (version >= 2) {
+                int ranges = (int) readVarLong(in);
+                for (int i = 0; i < ranges; i++) {
+                    LocalDate start = LocalDate.ofEpochDay(readZigZag(in));
+                    LocalDate end = LocalDate.ofEpochDay(readZigZag(in));
+                    Instant rangeFetchedAt = Instant.ofEpochMilli(in.readLong());
+                    coverage.add(new CoveredRange(start, end, rangeFetchedAt, version >= 3 && in.readBoolean()));
+                }
+            }
+            return new ActivitySnapshot(activities, fetchedAt, coverage);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeActivity(DataOutputStream out, StravaActivity a, Map<String, Integer> dictionary) throws IOException {
+        int mask = (a.getId() != null ? ID : 0)
+                | (a.getName() != null ? NAME : 0)
+                | (a.getSportType() != null ? SPORT_TYPE : 0)
+                | (a.getType() != null ? TYPE : 0)
+                | (a.getDistance() != null ? DISTANCE : 0)
+                | (a.getMovingTime() != null ? MOVING_TIME : 0)
+                | (a.getElapsedTime() != null ? ELAPSED_TIME : 0)
+                | (a.getTotalElevationGain() != null ? ELEVATION : 0)
+                | (a.getStartDate() != null ? START_DATE : 0)
+                | (a.getStartDateLocal() != null ? START_DATE_LOCAL : 0)
+                | (a.getAverageSpeed() != null ? AVERAGE_SPEED : 0)
+                | (a.getMaxSpeed() != null ? MAX_SPEED : 0);
+        out.writeShort(mask);
+
+        if (a.getId() != null) writeVarLong(out, a.getId());
+        if (a.getName() != null) out.writeUTF(a.getName());
+        if (a.getSportType() != null) writeVarLong(out, dictionary.get(a.getSportType()));
+        if (a.getType() != null) writeVarLong(out, dictionary.get(a.getType()));
+        if (a.getDistance() != null) out.writeDouble(a.getDistance());
+        if (a.getMovingTime() != null) writeVarLong(out, a.getMovingTime());
+        if (a.getElapsedTime() != null) writeVarLong(out, a.getElapsedTime());
+        if (a.getTotalElevationGain() != null) out.writeDouble(a.getTotalElevationGain());
+        if (a.getStartDate() != null) writeDateTime(out, a.getStartDate(), dictionary);
+        if (a.getStartDateLocal() != null) writeDateTime(out, a.getStartDateLocal(), dictionary);
+        if (a.getAverageSpeed() != null) out.writeDouble(a.getAverageSpeed());
+        if (a.getMaxSpeed() != null) out.writeDouble(a.getMaxSpeed());
+    }
+
+    private static StravaActivity readActivity(DataInputStream in, String[] words) throws IOException {
+        int mask = in.readUnsignedShort();
+        StravaActivity a = new StravaActivity();
+        if ((mask & ID) != 0) a.setId(readVarLong(in));
+        if ((mask & NAME) != 0) a.setName(in.readUTF());
+        if ((mask & SPORT_TYPE) != 0) a.setSportType(words[(int) readVarLong(in)]);
+        if ((mask & TYPE) != 0) a.setType(words[(int) readVarLong(in)]);
+        if ((mask & DISTANCE) != 0) a.setDistance(in.readDouble());
+        if ((mask & MOVING_TIME) != 0) a.setMovingTime((int) readVarLong(in));
+        if ((mask & ELAPSED_TIME) != 0) a.setElapsedTime((int) readVarLong(in));
+        if ((mask & ELEVATION) != 0) a.setTotalElevationGain(in.readDouble());
+        if ((mask & START_DATE) != 0) a.setStartDate(readDateTime(in, words));
+        if ((mask & START_DATE_LOCAL) != 0) a.setStartDateLocal(readDateTime(in, words));
+        if ((mask & AVERAGE_SPEED) != 0) a.setAverageSpeed(in.readDouble());
+        if ((mask & MAX_SPEED) != 0) a.setMaxSpeed(in.readDouble());
+        return a;
+    }
+
+    private static void writeDateTime(DataOutputStream out, ZonedDateTime dateTime, Map<String, Integer> dictionary) throws IOException {
+        writeVarLong(out, dictionary.get(dateTime.getZone().getId()));
+        writeZigZag(out, dateTime.toEpochSecond());
+    }
+
+    private static ZonedDateTime readDateTime(DataInputStream in, String[] words) throws IOException {
+        ZoneId zone = ZoneId.of(words[(int) readVarLong(in)]);
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(readZigZag(in)), zone);
+    }
+
+    private static void intern(String word, Map<String, Integer> dictionary, List<String> words) {
+        if (word != null && !dictionary.containsKey(word)) {
+            dictionary.put(word, words.size());
+            words.add(word);
+        }
+    }
+
+    private static void writeZigZag(DataOutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readZigZag(DataInputStream in) throws IOException {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    // Unsigned LEB128; negative values (never produced for ids, times or indexes) would take 10 bytes but still round-trip
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint in activity snapshot");
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.strava.store;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Storage for fetched activity histories, shared by every node that points at the same backend.
+ * <p>
+ * Implementations persist snapshots in the compact form produced by {@link ActivitySnapshotCodec} and
+ * drop them once {@code retention} has passed. Whether a snapshot is still fresh enough to serve is
+ * decided by the caller from {@link ActivitySnapshot#getFetchedAt()}.
+ */
+public interface ActivityStore {
+
+    /**
+     * Retention for histories that must never be dropped, such as those holding imported ranges.
+     */
+    Duration RETAIN_INDEFINITELY = ChronoUnit.FOREVER.getDuration();
+
+    Optional<ActivitySnapshot> get(String key);
+
+    void put(String key, ActivitySnapshot snapshot, Duration retention);
+
+    void remove(String key);
+
+    static long expiresAtMillis(Duration retention) {
+        return retention.equals(RETAIN_INDEFINITELY)
+                ? Long.MAX_VALUE
+                : System.currentTimeMillis() + retention.toMillis();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.strava.store;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Local dates, inclusive, for which a snapshot holds every activity as of {@code fetchedAt}.
+ * {@link LocalDate#MIN} as the start stands for "since the beginning of the history".
+ * <p>
+ * A sealed range covers a closed past period loaded from a bulk export. It never goes stale, is never
+ * re-fetched from Strava and keeps the history holding it from expiring.
+ */
+public record CoveredRange(LocalDate start, LocalDate end, Instant fetchedAt, boolean sealed) {
+
+    public CoveredRange(LocalDate start, LocalDate end, Instant fetchedAt) {
+        this(start, end, fetchedAt, false);
+    }
+
+    public boolean contains(LocalDate day) {
+        return !day.isBefore(start) && !day.isAfter(end);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.strava.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Embedded on-disk store: one file per key, written atomically, so it survives restarts and can be
+ * shared by nodes mounting the same volume.
+ * <p>
+ * File layout: 8-byte expiry (epoch millis) followed by the {@link ActivitySnapshotCodec} payload.
+ */
+public class FileActivityStore implements ActivityStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileActivityStore.class);
+
+    private final Path directory;
+
+    public FileActivityStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create activity store directory " + directory, e);
+        }
+    }
+
+    @Override
+    public Optional<ActivitySnapshot> get(String key) {
+        Path file = fileFor(key);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long expiresAt = buffer.getLong();
+        if (expiresAt < System.currentTimeMillis()) {
+            remove(key);
+            return Optional.empty();
+        }
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+        return Optional.of(ActivitySnapshotCodec.decode(payload));
+    }
+
+    @Override
+    public void put(String key, ActivitySnapshot snapshot, Duration retention) {
+        byte[] payload = ActivitySnapshotCodec.encode(snapshot);
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + payload.length);
+        buffer.putLong(ActivityStore.expiresAtMillis(retention));
+        buffer.put(payload);
+
+        Path target = fileFor(key);
+        try {
+            Path temp = Files.createTempFile(directory, "snapshot", ".tmp");
+            Files.write(temp, buffer.array());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        try {
+            Files.deleteIfExists(fileFor(key));
+        } catch (IOException e) {
+            logger.warn("Unable to delete activity snapshot for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private Path fileFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest) + ".bin");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.strava.store;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local store. Snapshots are kept encoded, which is several times smaller than the object graph.
+ */
+public class InMemoryActivityStore implements ActivityStore {
+
+    private record Entry(byte[] payload, long expiresAtMillis) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public InMemoryActivityStore(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Optional<ActivitySnapshot> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAtMillis() < System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(ActivitySnapshotCodec.decode(entry.payload()));
+    }
+
+    @Override
+    public void put(String key, ActivitySnapshot snapshot, Duration retention) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(e -> e.expiresAtMillis() < now);
+            if (entries.size() >= maxEntries) {
+                return; // Still full: skip caching rather than grow without bound
+            }
+        }
+        entries.put(key, new Entry(ActivitySnapshotCodec.encode(snapshot), ActivityStore.expiresAtMillis(retention)));
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.strava.store;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Store backed by any server speaking the Redis protocol, so several app nodes share fetched histories.
+ */
+public class RedisActivityStore implements ActivityStore {
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final String keyPrefix;
+
+    public RedisActivityStore(RedisConnectionFactory connectionFactory, String keyPrefix) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        this.redisTemplate = template;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public Optional<ActivitySnapshot> get(String key) {
+        byte[] payload = redisTemplate.opsForValue().get(keyPrefix + key);
+        return Optional.ofNullable(payload).map(ActivitySnapshotCodec::decode);
+    }
+
+    @Override
+    public void put(String key, ActivitySnapshot snapshot, Duration retention) {
+        byte[] payload = ActivitySnapshotCodec.encode(snapshot);
+        if (retention.equals(RETAIN_INDEFINITELY)) {
+            redisTemplate.opsForValue().set(keyPrefix + key, payload);
+        } else {
+            redisTemplate.opsForValue().set(keyPrefix + key, payload, retention);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        redisTemplate.delete(keyPrefix + key);
+    }
+}
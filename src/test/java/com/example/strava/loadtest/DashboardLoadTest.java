@@ -0,0 +1,212 @@
+package com.example.strava.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oauth2Login;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Drives the ten dashboard endpoints with many concurrent simulated athletes against {@link StravaApiStub}.
+ * <p>
+ * Excluded from {@code ./gradlew test}; run it with {@code ./gradlew loadTest} and tune it with
+ * {@code -Dloadtest.*} system properties (users, iterations, activities, latencyMs, pageSize,
+ * throttleRate, errorRate, rangeDays).
+ */
+@Tag("load")
+@SpringBootTest(properties = {
+        "logging.level.com.example.strava=INFO",
+        "logging.level.org.springframework.security=INFO"
+})
+@AutoConfigureMockMvc
+class DashboardLoadTest {
+
+    private static final List<String> DASHBOARD_ENDPOINTS = List.of(
+            "/api/stats/summary",
+            "/api/stats/activity-count",
+            "/api/stats/time-distribution",
+            "/api/stats/workout-heatmap",
+            "/api/stats/workout-heatmap/summary",
+            "/api/stats/run-statistics",
+            "/api/stats/run-distribution",
+            "/api/stats/running-heatmap",
+            "/api/stats/mileage-trend?period=weekly",
+            "/api/stats/pace-trend?period=weekly");
+
+    private static final StravaApiStub STUB = startStub();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OAuth2AuthorizedClientService authorizedClientService;
+
+    @Autowired
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @DynamicPropertySource
+    static void stravaApi(DynamicPropertyRegistry registry) {
+        registry.add("strava.api.base-url", STUB::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Test
+    void dashboardUnderConcurrentLoad() throws Exception {
+        int users = Integer.getInteger("loadtest.users", 25);
+        int iterations = Integer.getInteger("loadtest.iterations", 3);
+        int rangeDays = Integer.getInteger("loadtest.rangeDays", 365);
+
+        List<OAuth2User> athletes = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            athletes.add(registerAthlete("load-athlete-" + i));
+        }
+        STUB.resetCounters();
+
+        String dateParams = "after=" + LocalDate.now().minusDays(rangeDays) + "&before=" + LocalDate.now();
+        Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+        Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(users)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (OAuth2User athlete : athletes) {
+                futures.add(executor.submit(() -> {
+                    for (int iteration = 0; iteration < iterations; iteration++) {
+                        for (String endpoint : DASHBOARD_ENDPOINTS) {
+                            String url = endpoint + (endpoint.contains("?") ? "&" : "?") + dateParams;
+                            long t0 = System.nanoTime();
+                            int status = perform(url, athlete);
+                            long elapsed = System.nanoTime() - t0;
+                            latencies.computeIfAbsent(endpoint, e -> new ConcurrentLinkedQueue<>()).add(elapsed);
+                            statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long wallNanos = System.nanoTime() - started;
+
+        long totalRequests = (long) users * iterations * DASHBOARD_ENDPOINTS.size();
+        printReport(users, iterations, totalRequests, wallNanos, latencies, statuses);
+
+        assertThat(latencies.values().stream().mapToInt(ConcurrentLinkedQueue::size).sum()).isEqualTo(totalRequests);
+        if (STUB.throttledCount() == 0 && STUB.serverErrorCount() == 0) {
+            assertThat(statuses.keySet()).containsOnly(200);
+        }
+    }
+
+    private int perform(String url, OAuth2User athlete) {
+        try {
+            return mockMvc.perform(get(url).with(oauth2Login().oauth2User(athlete)))
+                    .andReturn()
+                    .getResponse()
+                    .getStatus();
+        } catch (Exception e) {
+            throw new IllegalStateException("Request failed: " + url, e);
+        }
+    }
+
+    private OAuth2User registerAthlete(String athleteId) {
+        OAuth2User user = new DefaultOAuth2User(
+                List.of(new SimpleGrantedAuthority("OAUTH2_USER")),
+                Map.of("id", athleteId, "firstname", "Load", "lastname", athleteId, "username", athleteId),
+                "id");
+        ClientRegistration registration = clientRegistrationRepository.findByRegistrationId("strava");
+        OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+                "token-" + athleteId, Instant.now(), Instant.now().plusSeconds(6 * 3600));
+        OAuth2AuthenticationToken authentication =
+                new OAuth2AuthenticationToken(user, user.getAuthorities(), registration.getRegistrationId());
+        authorizedClientService.saveAuthorizedClient(
+                new OAuth2AuthorizedClient(registration, athleteId, token), authentication);
+        return user;
+    }
+
+    private void printReport(int users, int iterations, long totalRequests, long wallNanos,
+                             Map<String, ConcurrentLinkedQueue<Long>> latencies, Map<Integer, AtomicLong> statuses) {
+        double seconds = wallNanos / 1_000_000_000.0;
+        long upstream = STUB.requestCount();
+        long dashboards = (long) users * iterations;
+
+        StringBuilder report = new StringBuilder();
+        report.append("\n==== Dashboard load test ====\n");
+        report.append(String.format("users=%d iterations=%d requests=%d wall=%.2fs throughput=%.1f req/s%n",
+                users, iterations, totalRequests, seconds, totalRequests / seconds));
+        report.append(String.format("upstream calls=%d (%.1f per dashboard load) throttled=%d serverErrors=%d%n",
+                upstream, upstream / (double) dashboards, STUB.throttledCount(), STUB.serverErrorCount()));
+        report.append("statuses=").append(new TreeMap<>(statuses)).append('\n');
+        report.append(String.format("%-40s %8s %8s %8s %8s %8s%n", "endpoint", "count", "p50ms", "p90ms", "p99ms", "maxms"));
+
+        List<Long> all = new ArrayList<>();
+        for (String endpoint : DASHBOARD_ENDPOINTS) {
+            long[] sorted = sorted(latencies.getOrDefault(endpoint, new ConcurrentLinkedQueue<>()));
+            Arrays.stream(sorted).forEach(all::add);
+            appendRow(report, endpoint, sorted);
+        }
+        appendRow(report, "ALL", all.stream().mapToLong(Long::longValue).sorted().toArray());
+        System.out.println(report);
+    }
+
+    private static void appendRow(StringBuilder report, String label, long[] sorted) {
+        report.append(String.format("%-40s %8d %8.1f %8.1f %8.1f %8.1f%n", label, sorted.length,
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.90),
+                percentileMillis(sorted, 0.99), percentileMillis(sorted, 1.0)));
+    }
+
+    private static long[] sorted(ConcurrentLinkedQueue<Long> samples) {
+        return samples.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static double percentileMillis(long[] sorted, double quantile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+    }
+
+    private static StravaApiStub startStub() {
+        try {
+            return StravaApiStub.start(StravaApiStub.Settings.fromSystemProperties());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.strava.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Strava REST API used by the load test.
+ * <p>
+ * Serves {@code GET /athlete/activities} with deterministic synthetic activities per access token,
+ * honouring {@code after}, {@code before}, {@code page} and {@code per_page}. Latency, page size caps,
+ * rate-limit headers and 429/5xx injection are configurable through {@link Settings}.
+ */
+class StravaApiStub implements AutoCloseable {
+
+    private static final String[] SPORT_TYPES = {"Run", "Run", "Run", "Ride", "Swim", "Walk", "WeightTraining", "TrailRun"};
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_INSTANT;
+
+    record Settings(int activitiesPerAthlete,
+                    Duration latency,
+                    int maxPageSize,
+                    double throttleRate,
+                    double serverErrorRate,
+                    int shortTermLimit,
+                    int dailyLimit) {
+
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("loadtest.activities", 1500),
+                    Duration.ofMillis(Long.getLong("loadtest.latencyMs", 40)),
+                    Integer.getInteger("loadtest.pageSize", 200),
+                    Double.parseDouble(System.getProperty("loadtest.throttleRate", "0")),
+                    Double.parseDouble(System.getProperty("loadtest.errorRate", "0")),
+                    Integer.getInteger("loadtest.shortTermLimit", 600),
+                    Integer.getInteger("loadtest.dailyLimit", 30000));
+        }
+    }
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, List<Map<String, Object>>> activitiesByToken = new ConcurrentHashMap<>();
+    private final Instant now = Instant.now();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+    private final AtomicLong windowRequests = new AtomicLong();
+    private volatile long windowStart = System.currentTimeMillis();
+
+    private StravaApiStub(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/athlete/activities", this::handleActivities);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    static StravaApiStub start(Settings settings) throws IOException {
+        StravaApiStub stub = new StravaApiStub(settings);
+        stub.server.start();
+        return stub;
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long requestCount() {
+        return requests.get();
+    }
+
+    long throttledCount() {
+        return throttled.get();
+    }
+
+    long serverErrorCount() {
+        return serverErrors.get();
+    }
+
+    void resetCounters() {
+        requests.set(0);
+        throttled.set(0);
+        serverErrors.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handleActivities(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            simulateLatency();
+            addRateLimitHeaders(exchange);
+
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer ")) {
+                respond(exchange, 401, "{\"message\":\"Authorization Error\"}");
+                return;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < settings.throttleRate()) {
+                throttled.incrementAndGet();
+                respond(exchange, 429, "{\"message\":\"Rate Limit Exceeded\"}");
+                return;
+            }
+            if (random.nextDouble() < settings.serverErrorRate()) {
+                serverErrors.incrementAndGet();
+                respond(exchange, 503, "{\"message\":\"Service Unavailable\"}");
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            long after = Long.parseLong(query.getOrDefault("after", "0"));
+            long before = Long.parseLong(query.getOrDefault("before", String.valueOf(Long.MAX_VALUE)));
+            int page = Math.max(1, Integer.parseInt(query.getOrDefault("page", "1")));
+            int perPage = Math.min(settings.maxPageSize(), Integer.parseInt(query.getOrDefault("per_page", "30")));
+
+            List<Map<String, Object>> matching = new ArrayList<>();
+            for (Map<String, Object> activity : activitiesFor(authorization.substring(7))) {
+                long start = (long) activity.get("_epoch");
+                if (start > after && start < before) {
+                    matching.add(activity);
+                }
+            }
+
+            int from = Math.min(matching.size(), (page - 1) * perPage);
+            int to = Math.min(matching.size(), from + perPage);
+            List<Map<String, Object>> body = new ArrayList<>(to - from);
+            for (Map<String, Object> activity : matching.subList(from, to)) {
+                Map<String, Object> copy = new LinkedHashMap<>(activity);
+                copy.remove("_epoch");
+                body.add(copy);
+            }
+            respond(exchange, 200, objectMapper.writeValueAsString(body));
+        }
+    }
+
+    private void simulateLatency() {
+        long base = settings.latency().toMillis();
+        if (base <= 0) return;
+        long jitter = ThreadLocalRandom.current().nextLong(-base / 2, base / 2 + 1);
+        try {
+            Thread.sleep(base + jitter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void addRateLimitHeaders(HttpExchange exchange) {
+        long nowMillis = System.currentTimeMillis();
+        if (nowMillis - windowStart > Duration.ofMinutes(15).toMillis()) {
+            windowStart = nowMillis;
+            windowRequests.set(0);
+        }
+        long shortTerm = windowRequests.incrementAndGet();
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", settings.shortTermLimit() + "," + settings.dailyLimit());
+        exchange.getResponseHeaders().add("X-RateLimit-Usage", shortTerm + "," + requests.get());
+    }
+
+    private void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Generates the athlete's history once per token: one activity roughly every 20 hours going back
+     * from "now", newest first, matching the order the real API returns.
+     */
+    private List<Map<String, Object>> activitiesFor(String token) {
+        return activitiesByToken.computeIfAbsent(token, t -> {
+            long seed = t.hashCode();
+            Random random = new Random(seed);
+            List<Map<String, Object>> activities = new ArrayList<>(settings.activitiesPerAthlete());
+            Instant start = now.minus(Duration.ofHours(2));
+            for (int i = 0; i < settings.activitiesPerAthlete(); i++) {
+                String sportType = SPORT_TYPES[random.nextInt(SPORT_TYPES.length)];
+                double distance = switch (sportType) {
+                    case "Ride" -> 15000 + random.nextDouble() * 60000;
+                    case "Swim" -> 500 + random.nextDouble() * 3000;
+                    case "WeightTraining" -> 0;
+                    default -> 2000 + random.nextDouble() * 20000;
+                };
+                int movingTime = sportType.equals("WeightTraining")
+                        ? 1800 + random.nextInt(3600)
+                        : (int) (distance / (2.0 + random.nextDouble() * 2.5));
+
+                Map<String, Object> activity = new HashMap<>();
+                activity.put("_epoch", start.getEpochSecond());
+                activity.put("id", (seed & 0xffffL) * 1_000_000L + i);
+                activity.put("name", sportType + " #" + i);
+                activity.put("sport_type", sportType);
+                activity.put("type", sportType.equals("TrailRun") ? "Run" : sportType);
+                activity.put("distance", distance);
+                activity.put("moving_time", movingTime);
+                activity.put("elapsed_time", movingTime + random.nextInt(600));
+                activity.put("total_elevation_gain", random.nextDouble() * 400);
+                activity.put("start_date", ISO.format(start));
+                activity.put("start_date_local", ISO.format(start));
+                activity.put("average_speed", movingTime > 0 ? distance / movingTime : 0);
+                activity.put("max_speed", movingTime > 0 ? distance / movingTime * 1.4 : 0);
+                activities.add(activity);
+
+                start = start.minus(Duration.ofHours(14 + random.nextInt(12)));
+            }
+            return activities;
+        });
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+}
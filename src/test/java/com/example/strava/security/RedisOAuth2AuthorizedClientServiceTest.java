@@ -0,0 +1,66 @@
+package com.example.strava.security;
+
+import com.example.strava.store.RedisStandIn;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisOAuth2AuthorizedClientServiceTest {
+
+    private static final ClientRegistration STRAVA = ClientRegistration.withRegistrationId("strava")
+            .clientId("client-id")
+            .clientSecret("client-secret")
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+            .authorizationUri("https://www.strava.com/oauth/authorize")
+            .tokenUri("https://www.strava.com/oauth/token")
+            .build();
+
+    @Test
+    void savesLoadsAndRemovesTokens() throws Exception {
+        try (RedisStandIn redis = new RedisStandIn()) {
+            LettuceConnectionFactory connectionFactory =
+                    new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", redis.port()));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            try {
+                RedisOAuth2AuthorizedClientService service = new RedisOAuth2AuthorizedClientService(
+                        new InMemoryClientRegistrationRepository(STRAVA), connectionFactory,
+                        "test:authorized-clients:", Duration.ofDays(30));
+                Instant issuedAt = Instant.now();
+                OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+                        "access-1", issuedAt, issuedAt.plus(Duration.ofHours(6)));
+                service.saveAuthorizedClient(new OAuth2AuthorizedClient(STRAVA, "42", accessToken,
+                        new OAuth2RefreshToken("refresh-1", issuedAt)), new TestingAuthenticationToken("42", null));
+
+                OAuth2AuthorizedClient loaded = service.loadAuthorizedClient("strava", "42");
+                assertThat(loaded).isNotNull();
+                assertThat(loaded.getClientRegistration()).isSameAs(STRAVA);
+                assertThat(loaded.getPrincipalName()).isEqualTo("42");
+                assertThat(loaded.getAccessToken().getTokenValue()).isEqualTo("access-1");
+                assertThat(loaded.getAccessToken().getExpiresAt()).isEqualTo(issuedAt.plus(Duration.ofHours(6)));
+                assertThat(loaded.getRefreshToken().getTokenValue()).isEqualTo("refresh-1");
+
+                assertThat((OAuth2AuthorizedClient) service.loadAuthorizedClient("strava", "7")).isNull();
+                assertThat((OAuth2AuthorizedClient) service.loadAuthorizedClient("garmin", "42")).isNull();
+
+                service.removeAuthorizedClient("strava", "42");
+                assertThat((OAuth2AuthorizedClient) service.loadAuthorizedClient("strava", "42")).isNull();
+            } finally {
+                connectionFactory.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.strava.security;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignedCookieCodecTest {
+
+    private static final String KEY = "0123456789abcdef0123456789abcdef";
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    private final SignedCookieCodec codec = codec(KEY, NOW);
+
+    @Test
+    void roundTripsPayload() {
+        String value = write(codec, "SESSION", "hello");
+
+        assertThat(read(codec, "SESSION", value)).isEqualTo("hello");
+    }
+
+    @Test
+    void rejectsTamperedPayloadAndSignature() {
+        String value = write(codec, "SESSION", "hello");
+        int dot = value.indexOf('.');
+        String tamperedBody = flipLastBit(value.substring(0, dot)) + value.substring(dot);
+        String tamperedSignature = value.substring(0, dot + 1) + flipLastBit(value.substring(dot + 1));
+
+        assertThat(read(codec, "SESSION", tamperedBody)).isNull();
+        assertThat(read(codec, "SESSION", tamperedSignature)).isNull();
+        assertThat(read(codec, "SESSION", "not-a-cookie")).isNull();
+        assertThat(read(codec, "SESSION", "%%%.%%%")).isNull();
+    }
+
+    @Test
+    void rejectsCookiesSignedWithAnotherKey() {
+        String value = write(codec(KEY.toUpperCase(), NOW), "SESSION", "hello");
+
+        assertThat(read(codec, "SESSION", value)).isNull();
+    }
+
+    @Test
+    void rejectsExpiredCookies() {
+        String value = write(codec, "SESSION", "hello");
+
+        assertThat(read(codec(KEY, NOW.plus(Duration.ofMinutes(4))), "SESSION", value)).isEqualTo("hello");
+        assertThat(read(codec(KEY, NOW.plus(Duration.ofMinutes(6))), "SESSION", value)).isNull();
+    }
+
+    @Test
+    void rejectsCookieReplayedUnderAnotherName() {
+        String value = write(codec, SignedCookieSecurityContextRepository.COOKIE_NAME, "hello");
+
+        assertThat(read(codec, SignedCookieAuthorizationRequestRepository.COOKIE_NAME, value)).isNull();
+    }
+
+    private static String flipLastBit(String base64) {
+        byte[] bytes = Base64.getUrlDecoder().decode(base64);
+        bytes[bytes.length - 1] ^= 1;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static SignedCookieCodec codec(String key, Instant now) {
+        return new SignedCookieCodec(key, true, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static String write(SignedCookieCodec codec, String name, String payload) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        codec.write(response, name, payload.getBytes(StandardCharsets.UTF_8), Duration.ofMinutes(5));
+        Cookie cookie = response.getCookie(name);
+        assertThat(cookie).isNotNull();
+        assertThat(cookie.isHttpOnly()).isTrue();
+        assertThat(cookie.getSecure()).isTrue();
+        return cookie.getValue();
+    }
+
+    private static String read(SignedCookieCodec codec, String name, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(name, value));
+        return codec.read(request, name).map(bytes -> new String(bytes, StandardCharsets.UTF_8)).orElse(null);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.strava.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.util.SerializationUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignedCookieRepositoriesTest {
+
+    private static final String KEY = "0123456789abcdef0123456789abcdef";
+
+    private final SignedCookieCodec codec = new SignedCookieCodec(KEY, false);
+    private final SignedCookieSecurityContextRepository contexts =
+            new SignedCookieSecurityContextRepository(codec, new ObjectMapper(), Duration.ofHours(1));
+    private final SignedCookieAuthorizationRequestRepository authorizationRequests =
+            new SignedCookieAuthorizationRequestRepository(codec);
+
+    @Test
+    void securityContextRoundTripsTheKeptAttributes() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        contexts.saveContext(context(), new MockHttpServletRequest(), response);
+
+        MockHttpServletRequest request = requestWith(response, SignedCookieSecurityContextRepository.COOKIE_NAME);
+        SecurityContext loaded = loadContext(contexts, request);
+
+        assertThat(contexts.containsContext(request)).isTrue();
+        assertThat(loaded.getAuthentication()).isInstanceOfSatisfying(OAuth2AuthenticationToken.class, token -> {
+            assertThat(token.getName()).isEqualTo("42");
+            assertThat(token.getAuthorizedClientRegistrationId()).isEqualTo("strava");
+            assertThat(token.getPrincipal().getAttributes()).containsEntry("firstname", "Ada").doesNotContainKey("email");
+            assertThat(token.getAuthorities()).extracting(Object::toString).containsExactly("OAUTH2_USER");
+        });
+    }
+
+    @Test
+    void savingAnEmptyContextClearsTheCookie() {
+        MockHttpServletResponse login = new MockHttpServletResponse();
+        contexts.saveContext(context(), new MockHttpServletRequest(), login);
+
+        MockHttpServletResponse logout = new MockHttpServletResponse();
+        contexts.saveContext(new SecurityContextImpl(),
+                requestWith(login, SignedCookieSecurityContextRepository.COOKIE_NAME), logout);
+
+        Cookie cleared = logout.getCookie(SignedCookieSecurityContextRepository.COOKIE_NAME);
+        assertThat(cleared).isNotNull();
+        assertThat(cleared.getMaxAge()).isZero();
+    }
+
+    @Test
+    void securityContextFromAnExpiredOrForeignCookieIsEmpty() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        contexts.saveContext(context(), new MockHttpServletRequest(), response);
+        String value = response.getCookie(SignedCookieSecurityContextRepository.COOKIE_NAME).getValue();
+
+        SignedCookieCodec later = new SignedCookieCodec(KEY, false,
+                Clock.fixed(Instant.now().plus(Duration.ofHours(2)), ZoneOffset.UTC));
+        SignedCookieSecurityContextRepository laterContexts =
+                new SignedCookieSecurityContextRepository(later, new ObjectMapper(), Duration.ofHours(1));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(SignedCookieSecurityContextRepository.COOKIE_NAME, value));
+        assertThat(loadContext(laterContexts, request).getAuthentication()).isNull();
+
+        SignedCookieSecurityContextRepository otherKey = new SignedCookieSecurityContextRepository(
+                new SignedCookieCodec(KEY.toUpperCase(), false), new ObjectMapper(), Duration.ofHours(1));
+        assertThat(loadContext(otherKey, request).getAuthentication()).isNull();
+    }
+
+    @Test
+    void authorizationRequestRoundTripsAndNeedsTheMatchingState() {
+        OAuth2AuthorizationRequest authorizationRequest = OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("https://www.strava.com/oauth/authorize")
+                .clientId("client-id")
+                .redirectUri("http://localhost:8080/login/oauth2/code/strava")
+                .scopes(Set.of("read", "activity:read_all"))
+                .state("state-1")
+                .attributes(attributes -> attributes.put(OAuth2ParameterNames.REGISTRATION_ID, "strava"))
+                .build();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        authorizationRequests.saveAuthorizationRequest(authorizationRequest, new MockHttpServletRequest(), response);
+
+        MockHttpServletRequest callback = requestWith(response, SignedCookieAuthorizationRequestRepository.COOKIE_NAME);
+        callback.setParameter(OAuth2ParameterNames.STATE, "state-1");
+        OAuth2AuthorizationRequest loaded = authorizationRequests.loadAuthorizationRequest(callback);
+        assertThat(loaded).isNotNull();
+        assertThat(loaded.getClientId()).isEqualTo("client-id");
+        assertThat(loaded.getScopes()).containsExactlyInAnyOrder("read", "activity:read_all");
+        assertThat(loaded.<String>getAttribute(OAuth2ParameterNames.REGISTRATION_ID)).isEqualTo("strava");
+
+        callback.setParameter(OAuth2ParameterNames.STATE, "another-state");
+        assertThat(authorizationRequests.loadAuthorizationRequest(callback)).isNull();
+    }
+
+    @Test
+    void sessionCookieReplayedAsAuthorizationRequestIsIgnored() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        contexts.saveContext(context(), new MockHttpServletRequest(), response);
+        String sessionValue = response.getCookie(SignedCookieSecurityContextRepository.COOKIE_NAME).getValue();
+
+        MockHttpServletRequest callback = new MockHttpServletRequest();
+        callback.setCookies(new Cookie(SignedCookieAuthorizationRequestRepository.COOKIE_NAME, sessionValue));
+        callback.setParameter(OAuth2ParameterNames.STATE, "state-1");
+
+        assertThat(authorizationRequests.loadAuthorizationRequest(callback)).isNull();
+    }
+
+    @Test
+    void authorizationRequestWithDisallowedClassesIsIgnored() {
+        // Correctly signed under the right name, but not an authorization request
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        codec.write(response, SignedCookieAuthorizationRequestRepository.COOKIE_NAME,
+                SerializationUtils.serialize(new AtomicLong(7)),
+                Duration.ofMinutes(5));
+        MockHttpServletRequest callback = requestWith(response, SignedCookieAuthorizationRequestRepository.COOKIE_NAME);
+        callback.setParameter(OAuth2ParameterNames.STATE, "state-1");
+
+        assertThat(authorizationRequests.loadAuthorizationRequest(callback)).isNull();
+    }
+
+    private static SecurityContext context() {
+        OAuth2User user = new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("OAUTH2_USER")),
+                Map.of("id", "42", "firstname", "Ada", "email", "ada@example.com"), "id");
+        return new SecurityContextImpl(new OAuth2AuthenticationToken(user, user.getAuthorities(), "strava"));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static SecurityContext loadContext(SignedCookieSecurityContextRepository repository,
+                                               MockHttpServletRequest request) {
+        return repository.loadContext(new HttpRequestResponseHolder(request, new MockHttpServletResponse()));
+    }
+
+    private static MockHttpServletRequest requestWith(MockHttpServletResponse response, String cookieName) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(response.getCookie(cookieName));
+        return request;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.strava.service;
+
+import com.example.strava.model.StravaActivity;
+import com.example.strava.store.ActivitySnapshot;
+import com.example.strava.store.ActivityStore;
+import com.example.strava.store.CoveredRange;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ActivityCoverageTest {
+
+    private static final Instant EARLIER = Instant.parse("2024-06-01T08:00:00Z");
+    private static final Instant LATER = Instant.parse("2024-06-01T09:00:00Z");
+
+    @Test
+    void subRangeOfAHeldRangeIsAnsweredWithoutGaps() {
+        ActivitySnapshot history = ActivityCoverage.merge(null, day(1), day(90), daily(1, 90), EARLIER);
+
+        ActivityCoverage.Lookup lookup = ActivityCoverage.lookup(history, day(61), day(90));
+
+        assertThat(lookup.complete()).isTrue();
+        assertThat(lookup.oldestFetchedAt()).isEqualTo(EARLIER);
+        assertThat(lookup.activities()).hasSize(30)
+                .allSatisfy(a -> assertThat(a.getStartDateLocal().toLocalDate()).isBetween(day(61), day(90)));
+    }
+
+    @Test
+    void overlappingRangeNeedsOnlyTheMissingDays() {
+        ActivitySnapshot history = ActivityCoverage.merge(null, day(31), day(60), daily(31, 60), EARLIER);
+        history = ActivityCoverage.merge(history, day(91), day(120), daily(91, 120), LATER);
+
+        ActivityCoverage.Lookup lookup = ActivityCoverage.lookup(history, day(1), day(120));
+
+        assertThat(lookup.gaps()).containsExactly(
+                new ActivityCoverage.DateSpan(day(1), day(30)),
+                new ActivityCoverage.DateSpan(day(61), day(90)));
+        assertThat(lookup.activities()).hasSize(60);
+        assertThat(lookup.oldestFetchedAt()).isEqualTo(EARLIER);
+    }
+
+    @Test
+    void refetchReplacesHeldActivitiesAndSplitsOlderCoverage() {
+        ActivitySnapshot history = ActivityCoverage.merge(null, day(1), day(90), daily(1, 90), EARLIER);
+
+        // Days 40-50 come back with activity 45 deleted on Strava
+        List<StravaActivity> refetched = daily(40, 50).stream().filter(a -> a.getId() != 45).toList();
+        history = ActivityCoverage.merge(history, day(40), day(50), refetched, LATER);
+
+        assertThat(history.getActivities()).hasSize(89)
+                .isSortedAccordingTo(ActivityCoverage.NEWEST_FIRST)
+                .noneMatch(a -> a.getId() == 45);
+        assertThat(history.getCoverage()).hasSize(3);
+        assertThat(ActivityCoverage.lookup(history, day(40), day(50)).oldestFetchedAt()).isEqualTo(LATER);
+        assertThat(ActivityCoverage.lookup(history, day(1), day(90)).complete()).isTrue();
+    }
+
+    @Test
+    void sealedRangesNeverGoStaleAndOutliveRefetches() {
+        ActivitySnapshot history = ActivityCoverage.merge(null, day(1), day(60), daily(1, 60), EARLIER, true);
+        history = ActivityCoverage.merge(history, day(61), day(90), daily(61, 90), LATER);
+
+        ActivityCoverage.Lookup sealedOnly = ActivityCoverage.lookup(history, day(10), day(20));
+        assertThat(sealedOnly.complete()).isTrue();
+        assertThat(sealedOnly.oldestFetchedAt()).isNull();
+        assertThat(sealedOnly.unsealed()).isEmpty();
+
+        ActivityCoverage.Lookup spanning = ActivityCoverage.lookup(history, day(1), day(90));
+        assertThat(spanning.oldestFetchedAt()).isEqualTo(LATER);
+        assertThat(spanning.unsealed()).containsExactly(new ActivityCoverage.DateSpan(day(61), day(90)));
+
+        // A refetch across the sealed days leaves them, and their activities, as imported
+        history = ActivityCoverage.merge(history, day(50), day(90), List.of(), LATER);
+        assertThat(history.getActivities()).hasSize(60);
+        assertThat(history.getCoverage()).extracting(CoveredRange::end, CoveredRange::sealed)
+                .containsExactly(tuple(day(60), true), tuple(day(90), false));
+        assertThat(ActivityCoverage.retention(history, Duration.ofHours(24)))
+                .isEqualTo(ActivityStore.RETAIN_INDEFINITELY);
+    }
+
+    @Test
+    void openEndedRequestsStopADayPastToday() {
+        LocalDate today = day(100);
+        assertThat(ActivityCoverage.start(null)).isEqualTo(LocalDate.MIN);
+        assertThat(ActivityCoverage.end(null, today)).isEqualTo(day(101));
+        assertThat(ActivityCoverage.end(day(500), today)).isEqualTo(day(101));
+        assertThat(ActivityCoverage.end(day(50), today)).isEqualTo(day(50));
+    }
+
+    private static LocalDate day(int n) {
+        return LocalDate.of(2024, 1, 1).plusDays(n - 1);
+    }
+
+    private static List<StravaActivity> daily(int first, int last) {
+        return IntStream.rangeClosed(first, last)
+                .mapToObj(n -> {
+                    StravaActivity activity = new StravaActivity();
+                    activity.setId((long) n);
+                    activity.setStartDateLocal(day(n).atTime(7, 0).atZone(ZoneOffset.UTC));
+                    return activity;
+                })
+                .toList();
+    }
+}
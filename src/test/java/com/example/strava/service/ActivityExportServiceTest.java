@@ -0,0 +1,64 @@
+package com.example.strava.service;
+
+import com.example.strava.model.StravaActivity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActivityExportServiceTest {
+
+    @Test
+    void csvTextThatLooksLikeAFormulaIsKeptAsText() throws Exception {
+        String csv = exportCsv(
+                activity(1, "=HYPERLINK(\"http://example.com\",\"Morning Run\")"),
+                activity(2, "+1 hill repeats"),
+                activity(3, "-10 degrees"),
+                activity(4, "@track"),
+                activity(5, "Easy run, 5k"));
+
+        // Each row up to its sport type: the id and the (possibly quoted) name
+        assertThat(csv.lines().skip(1)).extracting(line -> line.substring(0, line.indexOf(",Run,")))
+                .containsExactly(
+                        "1,\"'=HYPERLINK(\"\"http://example.com\"\",\"\"Morning Run\"\")\"",
+                        "2,'+1 hill repeats",
+                        "3,'-10 degrees",
+                        "4,'@track",
+                        "5,\"Easy run, 5k\"");
+    }
+
+    private static String exportCsv(StravaActivity... activities) throws Exception {
+        StravaApiService stravaApiService = mock(StravaApiService.class);
+        StravaApiService.ActivityCursor cursor = mock(StravaApiService.ActivityCursor.class);
+        when(stravaApiService.openCursor(eq("42"), any(), any())).thenReturn(cursor);
+        when(cursor.nextPage()).thenReturn(List.of(activities), List.of());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ActivityExportService(stravaApiService, new ObjectMapper())
+                .exportActivities("42", null, null, ActivityExportService.Format.CSV)
+                .writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static StravaActivity activity(long id, String name) {
+        StravaActivity activity = new StravaActivity();
+        activity.setId(id);
+        activity.setName(name);
+        activity.setSportType("Run");
+        activity.setType("Run");
+        activity.setDistance(5000.0);
+        activity.setMovingTime(1500);
+        activity.setStartDateLocal(ZonedDateTime.of(2024, 6, 3, 7, 0, 0, 0, ZoneOffset.UTC));
+        return activity;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.strava.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiter(true, 20, 2, 200, new SimpleMeterRegistry());
+
+    @Test
+    void clientErrorsReleaseThePermitWithoutShrinkingTheLimit() {
+        fail(new IllegalStateException("No authorized client for athlete 42"));
+        fail(WebClientResponseException.create(401, "Unauthorized", null, null, null));
+
+        assertThat(limiter.getLimit()).isEqualTo(20);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void upstreamFailuresShrinkTheLimit() {
+        fail(WebClientResponseException.create(503, "Service Unavailable", null, null, null));
+        assertThat(limiter.getLimit()).isEqualTo(18);
+
+        fail(WebClientResponseException.create(429, "Too Many Requests", null, null, null));
+        assertThat(limiter.getLimit()).isEqualTo(16);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void partialFetchesShrinkTheLimit() {
+        try (AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire()) {
+            permit.completed(3, true);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(18);
+    }
+
+    private void fail(RuntimeException error) {
+        assertThatThrownBy(() -> {
+            try (AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire()) {
+                permit.run(() -> {
+                    throw error;
+                });
+            }
+        }).isSameAs(error);
+    }
+}
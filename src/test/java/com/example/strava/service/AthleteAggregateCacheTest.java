@@ -0,0 +1,73 @@
+package com.example.strava.service;
+
+import com.example.strava.model.ActivityFetchResult;
+import com.example.strava.model.StravaActivity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AthleteAggregateCacheTest {
+
+    private static final LocalDate AFTER = LocalDate.of(2024, 6, 1);
+    private static final LocalDate BEFORE = LocalDate.of(2024, 6, 30);
+    private static final Instant FETCHED_AT = Instant.parse("2024-07-01T08:00:00Z");
+
+    private final StravaApiService stravaApiService = mock(StravaApiService.class);
+    private final AthleteAggregateCache cache = new AthleteAggregateCache(stravaApiService, Duration.ofMinutes(5), 100);
+
+    @Test
+    void completeHistoriesAreCachedPerRangeWithTheirFetchTime() {
+        when(stravaApiService.getAllActivities(eq("1"), any(), any()))
+                .thenReturn(new ActivityFetchResult(List.of(run()), false, 1, FETCHED_AT, false));
+
+        cache.get("1", AFTER, BEFORE);
+        AthleteAggregateCache.Result cached = cache.get("1", AFTER, BEFORE);
+        cache.get("1", AFTER, null);
+
+        assertThat(cached.aggregate().getTotalRuns()).isEqualTo(1);
+        assertThat(cached.partial()).isFalse();
+        assertThat(cached.stale()).isFalse();
+        assertThat(cached.fetchedAt()).isEqualTo(FETCHED_AT);
+        verify(stravaApiService).getAllActivities("1", AFTER, BEFORE);
+        verify(stravaApiService).getAllActivities("1", AFTER, null);
+    }
+
+    @Test
+    void partialAndStaleHistoriesAreNotCached() {
+        when(stravaApiService.getAllActivities(eq("1"), any(), any()))
+                .thenReturn(new ActivityFetchResult(List.of(run()), true, 1, FETCHED_AT, false));
+        when(stravaApiService.getAllActivities(eq("2"), any(), any()))
+                .thenReturn(new ActivityFetchResult(List.of(run()), false, 0, FETCHED_AT, true));
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(cache.get("1", AFTER, BEFORE).partial()).isTrue();
+            AthleteAggregateCache.Result stale = cache.get("2", AFTER, BEFORE);
+            assertThat(stale.stale()).isTrue();
+            assertThat(stale.fetchedAt()).isEqualTo(FETCHED_AT);
+        }
+
+        verify(stravaApiService, times(2)).getAllActivities("1", AFTER, BEFORE);
+        verify(stravaApiService, times(2)).getAllActivities("2", AFTER, BEFORE);
+    }
+
+    private static StravaActivity run() {
+        StravaActivity activity = new StravaActivity();
+        activity.setType("Run");
+        activity.setDistance(5000.0);
+        activity.setMovingTime(1500);
+        activity.setStartDateLocal(AFTER.plusDays(1).atTime(7, 0).atZone(ZoneOffset.UTC));
+        return activity;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.strava.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BestEffortsTest {
+
+    @Test
+    void evenPaceGivesProportionalEfforts() {
+        // 4 m/s for 50 minutes: 12 km
+        double[] time = new double[3001];
+        double[] distance = new double[3001];
+        for (int i = 0; i < time.length; i++) {
+            time[i] = i;
+            distance[i] = i * 4.0;
+        }
+
+        double[] efforts = BestEfforts.compute(ActivityStreams.encode(time, distance));
+
+        assertThat(efforts[BestEfforts.Distance.ONE_K.ordinal()]).isCloseTo(250, within(1e-6));
+        assertThat(efforts[BestEfforts.Distance.TEN_K.ordinal()]).isCloseTo(2500, within(1e-6));
+        assertThat(efforts[BestEfforts.Distance.HALF_MARATHON.ordinal()]).isNaN();
+    }
+
+    @Test
+    void slidingWindowMatchesExhaustiveSearch() {
+        Random random = new Random(3);
+        int n = 4000;
+        double[] time = new double[n];
+        double[] distance = new double[n];
+        for (int i = 1; i < n; i++) {
+            time[i] = time[i - 1] + 1 + random.nextInt(3);
+            distance[i] = distance[i - 1] + random.nextDouble() * 8;
+        }
+        ActivityStreams streams = ActivityStreams.encode(time, distance);
+        long[] t = streams.timeSeconds();
+        long[] d = streams.distanceCentimeters();
+
+        for (long target : new long[]{100_000, 160_934, 500_000}) {
+            assertThat(BestEfforts.fastest(t, d, target)).isCloseTo(exhaustive(t, d, target), within(1e-9));
+        }
+    }
+
+    @Test
+    void encodingRoundTripsAndClampsBackwardSamples() {
+        double[] time = {0, 1, 2, 3, 4};
+        double[] distance = {0, 3.25, 3.20, 9.5, 1_000_000.01};
+
+        ActivityStreams streams = ActivityStreams.encode(time, distance);
+
+        assertThat(streams.timeSeconds()).containsExactly(0, 1, 2, 3, 4);
+        assertThat(streams.distanceCentimeters()).containsExactly(0, 325, 325, 950, 100_000_001);
+    }
+
+    private static double exhaustive(long[] t, long[] d, long target) {
+        double best = Double.NaN;
+        for (int end = 1; end < d.length; end++) {
+            for (int start = end - 1; start >= 0; start--) {
+                if (d[end] - d[start] >= target) {
+                    double startDistance = d[end] - target;
+                    long segment = d[start + 1] - d[start];
+                    double fraction = segment > 0 ? (startDistance - d[start]) / segment : 0;
+                    double elapsed = t[end] - (t[start] + fraction * (t[start + 1] - t[start]));
+                    best = Double.isNaN(best) ? elapsed : Math.min(best, elapsed);
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.strava.service;
+
+import com.example.strava.model.ActivityFetchResult;
+import com.example.strava.model.PercentileDto;
+import com.example.strava.model.StravaActivity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PercentileServiceTest {
+
+    private static final double ACCURACY = 0.01;
+    private static final PercentileService.Metric METRIC = PercentileService.Metric.MOVING_TIME;
+
+    private final List<StravaActivity> history = new ArrayList<>();
+    private final List<LocalDate[]> fetches = new ArrayList<>();
+    private PercentileService service;
+
+    @BeforeEach
+    void setUp() {
+        // A year of runs and rides, up to three a day, with a few idle days
+        Random random = new Random(17);
+        long id = 0;
+        for (LocalDate day = LocalDate.of(2024, 1, 1); day.getYear() == 2024; day = day.plusDays(1)) {
+            int count = random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                StravaActivity activity = new StravaActivity();
+                activity.setId(++id);
+                activity.setSportType(random.nextInt(3) == 0 ? "Ride" : "Run");
+                activity.setMovingTime(600 + random.nextInt(7200));
+                activity.setDistance(1000.0 + random.nextInt(20_000));
+                activity.setStartDateLocal(day.atTime(6 + i * 4, 0).atZone(ZoneOffset.UTC));
+                history.add(activity);
+            }
+        }
+
+        StravaApiService stravaApiService = mock(StravaApiService.class);
+        when(stravaApiService.getAllActivities(eq("42"), any(), any())).thenAnswer(invocation -> {
+            LocalDate after = invocation.getArgument(1);
+            LocalDate before = invocation.getArgument(2);
+            fetches.add(new LocalDate[]{after, before});
+            List<StravaActivity> inRange = history.stream()
+                    .filter(inRange(after != null ? after : LocalDate.MIN, before))
+                    .toList();
+            return new ActivityFetchResult(inRange, false, 1, Instant.now(), false);
+        });
+        service = new PercentileService(stravaApiService, ACCURACY, Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void weeksCutByTheRangeUseOnlyTheirDaysInside() {
+        indexWholeYear();
+        // Wednesday to Thursday, so both end weeks are cut
+        assertMatchesExact(LocalDate.of(2024, 3, 6), LocalDate.of(2024, 5, 16), "weekly", null);
+    }
+
+    @Test
+    void monthsCutByTheRangeUseOnlyTheirDaysInside() {
+        indexWholeYear();
+        assertMatchesExact(LocalDate.of(2024, 2, 10), LocalDate.of(2024, 9, 20), "monthly", null);
+    }
+
+    @Test
+    void wholeRangeOverPartOfTheHistoryIsAssembledFromMonths() {
+        indexWholeYear();
+        assertMatchesExact(LocalDate.of(2024, 2, 10), LocalDate.of(2024, 7, 20), "all", null);
+        assertThat(fetches).hasSize(1);
+    }
+
+    @Test
+    void sportFilterIgnoresCaseAndOtherSports() {
+        indexWholeYear();
+        assertMatchesExact(LocalDate.of(2024, 4, 3), LocalDate.of(2024, 6, 27), "monthly", "ride");
+        assertMatchesExact(LocalDate.of(2024, 4, 3), LocalDate.of(2024, 6, 27), "weekly", "Run");
+        assertThat(fetches).hasSize(1);
+    }
+
+    @Test
+    void liveIndexIsWidenedForOtherRangesAndThenReused() {
+        service.getPercentiles("42", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 4, 30), METRIC, null, "weekly");
+        service.getPercentiles("42", LocalDate.of(2024, 6, 1), LocalDate.of(2024, 7, 31), METRIC, null, "weekly");
+
+        assertThat(fetches).hasSize(2);
+        assertThat(fetches.get(1)).containsExactly(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 7, 31));
+
+        // Between the two ranges: covered by the widened index, so no further fetch
+        assertMatchesExact(LocalDate.of(2024, 4, 17), LocalDate.of(2024, 6, 12), "weekly", null);
+        assertThat(fetches).hasSize(2);
+    }
+
+    // Later ranges are served from this index, so its period buckets are cut by their ends
+    private void indexWholeYear() {
+        service.getPercentiles("42", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), METRIC, null, "all");
+    }
+
+    private void assertMatchesExact(LocalDate after, LocalDate before, String period, String sportType) {
+        List<PercentileDto> buckets = service.getPercentiles("42", after, before, METRIC, sportType, period).buckets();
+
+        Function<LocalDate, String> label = "all".equals(period) ? day -> "all" : StravaStatsService.periodLabel(period);
+        Map<String, List<Double>> expected = new TreeMap<>();
+        history.stream()
+                .filter(inRange(after, before))
+                .filter(a -> sportType == null || sportType.equalsIgnoreCase(a.getSportType()))
+                .forEach(a -> expected.computeIfAbsent(label.apply(a.getStartDateLocal().toLocalDate()),
+                        k -> new ArrayList<>()).add((double) a.getMovingTime()));
+
+        assertThat(buckets).extracting(PercentileDto::getLabel).containsExactlyElementsOf(expected.keySet());
+        for (PercentileDto bucket : buckets) {
+            List<Double> values = expected.get(bucket.getLabel());
+            values.sort(null);
+            assertThat(bucket.getCount()).isEqualTo(values.size());
+            assertThat(bucket.getP10()).isCloseTo(exact(values, 0.10), within(exact(values, 0.10) * ACCURACY * 2));
+            assertThat(bucket.getP50()).isCloseTo(exact(values, 0.50), within(exact(values, 0.50) * ACCURACY * 2));
+            assertThat(bucket.getP90()).isCloseTo(exact(values, 0.90), within(exact(values, 0.90) * ACCURACY * 2));
+        }
+    }
+
+    private static double exact(List<Double> sorted, double q) {
+        return sorted.get((int) Math.floor(q * (sorted.size() - 1)));
+    }
+
+    private static Predicate<StravaActivity> inRange(LocalDate after, LocalDate before) {
+        return a -> {
+            LocalDate day = a.getStartDateLocal().toLocalDate();
+            return !day.isBefore(after) && (before == null || !day.isAfter(before));
+        };
+    }
+}
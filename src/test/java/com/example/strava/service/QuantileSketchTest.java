@@ -0,0 +1,68 @@
+package com.example.strava.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class QuantileSketchTest {
+
+    private static final double ACCURACY = 0.01;
+
+    @Test
+    void quantilesStayWithinRelativeAccuracy() {
+        Random random = new Random(7);
+        double[] values = new double[10_000];
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 240 + random.nextGaussian() * 45 + random.nextDouble() * 200; // pace-like seconds per mile
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.10, 0.50, 0.90}) {
+            double exact = values[(int) Math.floor(q * (values.length - 1))];
+            assertThat(sketch.quantile(q)).isCloseTo(exact, within(exact * ACCURACY * 2));
+        }
+    }
+
+    @Test
+    void mergedSketchesMatchSingleSketch() {
+        Random random = new Random(11);
+        QuantileSketch whole = new QuantileSketch(ACCURACY);
+        QuantileSketch first = new QuantileSketch(ACCURACY);
+        QuantileSketch second = new QuantileSketch(ACCURACY);
+        for (int i = 0; i < 5_000; i++) {
+            double value = random.nextDouble() * 20;
+            whole.add(value);
+            (i % 2 == 0 ? first : second).add(value);
+        }
+
+        QuantileSketch merged = first.merge(second);
+
+        assertThat(merged.getCount()).isEqualTo(whole.getCount());
+        for (double q : new double[]{0.0, 0.10, 0.50, 0.90, 1.0}) {
+            assertThat(merged.quantile(q)).isEqualTo(whole.quantile(q));
+        }
+    }
+
+    @Test
+    void insertionOrderDoesNotChangeQuantiles() {
+        QuantileSketch ascending = new QuantileSketch(ACCURACY);
+        QuantileSketch descending = new QuantileSketch(ACCURACY);
+        for (int i = 1; i <= 2_000; i++) {
+            ascending.add(i * 0.5);
+            descending.add((2_001 - i) * 0.5);
+        }
+        ascending.add(0);
+        descending.add(0);
+
+        for (double q : new double[]{0.0, 0.01, 0.10, 0.50, 0.90, 1.0}) {
+            assertThat(descending.quantile(q)).isEqualTo(ascending.quantile(q));
+        }
+        assertThat(ascending.quantile(0.5)).isCloseTo(500.0, within(500.0 * ACCURACY * 2));
+    }
+}
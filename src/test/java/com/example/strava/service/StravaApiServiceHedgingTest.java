@@ -0,0 +1,103 @@
+package com.example.strava.service;
+
+import com.example.strava.store.InMemoryActivityStore;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StravaApiServiceHedgingTest {
+
+    private final FairUpstreamScheduler scheduler = new FairUpstreamScheduler(2, 2, 10, Duration.ofSeconds(5));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StravaRateLimitTracker rateLimitTracker = new StravaRateLimitTracker();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.destroy();
+    }
+
+    @Test
+    void hedgeAnswersForASlowPrimary() {
+        StravaApiService service = service(call -> call == 1 ? page(Duration.ofSeconds(3)) : page(Duration.ZERO));
+
+        long startedAt = System.nanoTime();
+        assertThat(service.getAllActivities("42", null, null).getActivities()).hasSize(3);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofSeconds(2));
+        assertThat(calls).hasValue(2);
+        assertThat(meterRegistry.counter("strava.pages.hedged").count()).isEqualTo(1);
+    }
+
+    @Test
+    void primaryFailingAfterTheHedgeFiredLeavesTheHedgeToAnswer() {
+        StravaApiService service = service(call -> call == 1
+                ? Mono.delay(Duration.ofMillis(300)).thenReturn(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build())
+                : page(Duration.ofMillis(600)));
+
+        assertThat(service.getAllActivities("42", null, null).getActivities()).hasSize(3);
+
+        assertThat(calls).hasValue(2); // no retry: the failed primary did not cancel the hedge
+    }
+
+    @Test
+    void noHedgeOnceTheRateBudgetIsSpent() {
+        HttpHeaders usage = new HttpHeaders();
+        usage.add("X-RateLimit-Limit", "100,1000");
+        usage.add("X-RateLimit-Usage", "90,100");
+        rateLimitTracker.record(usage);
+        StravaApiService service = service(call -> page(Duration.ofMillis(500)));
+
+        assertThat(service.getAllActivities("42", null, null).getActivities()).hasSize(3);
+
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.counter("strava.pages.hedged").count()).isZero();
+    }
+
+    private StravaApiService service(IntFunction<Mono<ClientResponse>> responses) {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://strava.test")
+                .exchangeFunction(request -> responses.apply(calls.incrementAndGet()))
+                .build();
+        RetryRegistry retryRegistry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(3)
+                .waitDuration(Duration.ofMillis(10))
+                .retryExceptions(WebClientException.class)
+                .build());
+        PageFetchPolicy policy = new PageFetchPolicy(Duration.ofSeconds(5), 0.5, true, 0.95, 1, Duration.ofMillis(100),
+                0.25, rateLimitTracker, meterRegistry);
+        policy.recordLatency(Duration.ofMillis(20).toNanos()); // hedge after the 100ms floor
+        return new StravaApiService(webClient, StravaApiServiceTracingTest.authorizedClients("42"),
+                new PaginationCheckpointStore(Duration.ofMinutes(15), 100), scheduler, retryRegistry,
+                new AthleteCircuitBreakers(CircuitBreakerRegistry.ofDefaults(), Duration.ofMinutes(30), 100),
+                new InMemoryActivityStore(10),
+                Duration.ofMinutes(5), Duration.ofHours(1), Duration.ofHours(1), 4, ObservationRegistry.NOOP,
+                new AdaptiveConcurrencyLimiter(true, 20, 2, 200, new SimpleMeterRegistry()), policy);
+    }
+
+    private static Mono<ClientResponse> page(Duration delay) {
+        ClientResponse response = ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(StravaApiServiceTracingTest.PAGE)
+                .build();
+        return delay.isZero() ? Mono.just(response) : Mono.delay(delay).thenReturn(response);
+    }
+}
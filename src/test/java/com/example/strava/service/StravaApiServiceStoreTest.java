@@ -0,0 +1,129 @@
+package com.example.strava.service;
+
+import com.example.strava.model.ActivityFetchResult;
+import com.example.strava.model.StravaActivity;
+import com.example.strava.store.ActivitySnapshot;
+import com.example.strava.store.ActivityStore;
+import com.example.strava.store.CoveredRange;
+import com.example.strava.store.InMemoryActivityStore;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StravaApiServiceStoreTest {
+
+    private static final LocalDate IMPORTED_THROUGH = LocalDate.of(2024, 4, 30);
+
+    private final FairUpstreamScheduler scheduler = new FairUpstreamScheduler(2, 2, 10, Duration.ofSeconds(5));
+    private final InMemoryActivityStore store = new InMemoryActivityStore(10);
+    private final List<URI> requests = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.destroy();
+    }
+
+    @Test
+    void importedRangeIsServedWithoutUpstreamCallsLongAfterFreshFor() {
+        importHistory();
+        StravaApiService service = service();
+
+        for (int i = 0; i < 2; i++) {
+            ActivityFetchResult result =
+                    service.getAllActivities("42", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 1));
+            assertThat(result.getActivities()).hasSize(61);
+            assertThat(result.isStale()).isFalse();
+            assertThat(result.getPagesFetched()).isZero();
+        }
+
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void openEndedRangeOnlyEverFetchesTheDaysSinceTheImport() {
+        importHistory();
+        StravaApiService service = service();
+
+        for (int i = 0; i < 2; i++) {
+            // Nothing stays fresh, so the second request re-fetches whatever is not sealed
+            assertThat(service.getAllActivities("42", LocalDate.of(2024, 1, 1), null).getActivities())
+                    .extracting(StravaActivity::getId)
+                    .contains(1L, 2L, 3L, 101L, 221L);
+        }
+
+        long afterImport = IMPORTED_THROUGH.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        assertThat(requests).hasSize(2)
+                .allSatisfy(uri -> assertThat(uri.getQuery()).contains("after=" + afterImport));
+        ActivitySnapshot history = store.get("42").orElseThrow();
+        assertThat(history.getCoverage()).filteredOn(CoveredRange::sealed)
+                .extracting(CoveredRange::end)
+                .containsExactly(IMPORTED_THROUGH);
+    }
+
+    private void importHistory() {
+        List<StravaActivity> daily = IntStream.rangeClosed(1, 121)
+                .mapToObj(n -> {
+                    StravaActivity activity = new StravaActivity();
+                    activity.setId(100L + n);
+                    activity.setType("Run");
+                    activity.setStartDateLocal(
+                            LocalDate.of(2024, 1, 1).plusDays(n - 1).atTime(7, 0).atZone(ZoneOffset.UTC));
+                    return activity;
+                })
+                .toList();
+        // Imported a year ago: well past fresh-for, stale-while-revalidate and retention
+        ActivitySnapshot history = ActivityCoverage.merge(null, LocalDate.MIN, IMPORTED_THROUGH, daily,
+                Instant.now().minus(Duration.ofDays(365)), true);
+        store.put("42", history, ActivityStore.RETAIN_INDEFINITELY);
+    }
+
+    private StravaApiService service() {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://strava.test")
+                .exchangeFunction(request -> {
+                    requests.add(request.url());
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(StravaApiServiceTracingTest.PAGE)
+                            .build());
+                })
+                .build();
+        RetryRegistry retryRegistry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(3)
+                .waitDuration(Duration.ofMillis(10))
+                .retryExceptions(WebClientException.class)
+                .build());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Nothing fetched from Strava is ever fresh or served stale here
+        return new StravaApiService(webClient, StravaApiServiceTracingTest.authorizedClients("42"),
+                new PaginationCheckpointStore(Duration.ofMinutes(15), 100), scheduler, retryRegistry,
+                new AthleteCircuitBreakers(CircuitBreakerRegistry.ofDefaults(), Duration.ofMinutes(30), 100),
+                store,
+                Duration.ZERO, Duration.ofHours(1), Duration.ZERO, 4, ObservationRegistry.NOOP,
+                new AdaptiveConcurrencyLimiter(true, 20, 2, 200, meterRegistry),
+                new PageFetchPolicy(Duration.ofSeconds(5), 0.5, false, 0.95, 20, Duration.ofMillis(200), 0.25,
+                        new StravaRateLimitTracker(), meterRegistry));
+    }
+}
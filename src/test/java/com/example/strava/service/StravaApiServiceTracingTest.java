@@ -0,0 +1,128 @@
+package com.example.strava.service;
+
+import com.example.strava.store.InMemoryActivityStore;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.test.simple.SimpleSpan;
+import io.micrometer.tracing.test.simple.SimpleTracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StravaApiServiceTracingTest {
+
+    static final String PAGE = """
+            [{"id": 3, "type": "Run", "distance": 5000, "moving_time": 1500, "start_date_local": "2024-05-03T07:00:00Z"},
+             {"id": 2, "type": "Ride", "distance": 20000, "moving_time": 3600, "start_date_local": "2024-05-02T07:00:00Z"},
+             {"id": 1, "type": "Run", "distance": 8000, "moving_time": 2500, "start_date_local": "2024-05-01T07:00:00Z"}]
+            """;
+
+    private final FairUpstreamScheduler scheduler = new FairUpstreamScheduler(2, 2, 10, Duration.ofSeconds(5));
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.destroy();
+    }
+
+    @Test
+    void pageSpansRecordAttemptsAndItemCounts() {
+        SimpleTracer tracer = new SimpleTracer();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+
+        // First attempt fails with a 503, the retry succeeds
+        AtomicInteger calls = new AtomicInteger();
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://strava.test")
+                .exchangeFunction(request -> Mono.just(calls.incrementAndGet() == 1
+                        ? ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()
+                        : ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .body(PAGE)
+                                .build()))
+                .build();
+        RetryRegistry retryRegistry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(3)
+                .waitDuration(Duration.ofMillis(10))
+                .retryExceptions(WebClientException.class)
+                .build());
+
+        StravaApiService service = new StravaApiService(webClient, authorizedClients("42"),
+                new PaginationCheckpointStore(Duration.ofMinutes(15), 100), scheduler, retryRegistry,
+                new AthleteCircuitBreakers(CircuitBreakerRegistry.ofDefaults(), Duration.ofMinutes(30), 100),
+                new InMemoryActivityStore(10),
+                Duration.ofMinutes(5), Duration.ofHours(1), Duration.ofHours(1), 4, observationRegistry,
+                new AdaptiveConcurrencyLimiter(true, 20, 2, 200, new SimpleMeterRegistry()),
+                new PageFetchPolicy(Duration.ofSeconds(5), 0.5, true, 0.95, 20, Duration.ofMillis(200), 0.25,
+                        new StravaRateLimitTracker(), new SimpleMeterRegistry()));
+
+        assertThat(service.getAllActivities("42", null, null).getActivities()).hasSize(3);
+
+        SimpleSpan fetch = span(tracer, "strava.activities.fetch");
+        SimpleSpan page = span(tracer, "strava.activities.page");
+        List<SimpleSpan> attempts = spans(tracer, "strava.activities.page.attempt");
+
+        assertThat(fetch.getTags()).containsEntry("source", "upstream").containsEntry("pages", "1");
+        assertThat(span(tracer, "strava.token.lookup").getParentId()).isEqualTo(fetch.getSpanId());
+        assertThat(page.getParentId()).isEqualTo(fetch.getSpanId());
+        assertThat(page.getTags())
+                .containsEntry("page", "1")
+                .containsEntry("items", "3")
+                .containsEntry("attempts", "2");
+        assertThat(attempts).hasSize(2)
+                .allSatisfy(attempt -> assertThat(attempt.getParentId()).isEqualTo(page.getSpanId()));
+        assertThat(attempts).extracting(attempt -> attempt.getTags().get("attempt")).containsExactlyInAnyOrder("1", "2");
+        assertThat(attempts).filteredOn(attempt -> attempt.getError() != null).hasSize(1);
+    }
+
+    private static SimpleSpan span(SimpleTracer tracer, String name) {
+        List<SimpleSpan> matching = spans(tracer, name);
+        assertThat(matching).hasSize(1);
+        return matching.get(0);
+    }
+
+    private static List<SimpleSpan> spans(SimpleTracer tracer, String name) {
+        return tracer.getSpans().stream().filter(span -> name.equals(span.getName())).toList();
+    }
+
+    static InMemoryOAuth2AuthorizedClientService authorizedClients(String athleteId) {
+        ClientRegistration registration = ClientRegistration.withRegistrationId("strava")
+                .clientId("client-id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri("http://strava.test/oauth/authorize")
+                .tokenUri("http://strava.test/oauth/token")
+                .build();
+        InMemoryOAuth2AuthorizedClientService clients =
+                new InMemoryOAuth2AuthorizedClientService(new InMemoryClientRegistrationRepository(registration));
+        OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "token",
+                Instant.now(), Instant.now().plusSeconds(3600));
+        clients.saveAuthorizedClient(new OAuth2AuthorizedClient(registration, athleteId, token),
+                new TestingAuthenticationToken(athleteId, null));
+        return clients;
+    }
+}
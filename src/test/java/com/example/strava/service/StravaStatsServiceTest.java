@@ -0,0 +1,221 @@
+package com.example.strava.service;
+
+import com.example.strava.model.ActivityCountDto;
+import com.example.strava.model.CompactHeatmapDto;
+import com.example.strava.model.HeatmapDataDto;
+import com.example.strava.model.PeriodStatsDto;
+import com.example.strava.model.PunchCardDto;
+import com.example.strava.model.QueryRowDto;
+import com.example.strava.model.RunDistributionDto;
+import com.example.strava.model.StravaActivity;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StravaStatsServiceTest {
+
+    private static final String[] SPORT_TYPES = {"Run", "TrailRun", "Ride", "Swim", "WeightTraining"};
+
+    // Parallel sums are merged in a different order, so doubles may differ in the last few bits
+    private static final RecursiveComparisonConfiguration CLOSE_DOUBLES = RecursiveComparisonConfiguration.builder()
+            .withComparatorForType((a, b) -> Math.abs(a - b) < 1e-6 ? 0 : Double.compare(a, b), Double.class)
+            .build();
+
+    private final StravaStatsService sequential = new StravaStatsService(Integer.MAX_VALUE, 1024);
+    private final StravaStatsService parallel = new StravaStatsService(0, 64);
+
+    @Test
+    void parallelAggregationMatchesSequential() {
+        List<StravaActivity> activities = activities(5000);
+        LocalDate today = LocalDate.of(2024, 6, 30);
+
+        assertSame(parallel.getSummaryStats(activities), sequential.getSummaryStats(activities));
+        assertSame(parallel.getActivityCountDistribution(activities), sequential.getActivityCountDistribution(activities));
+        assertSame(parallel.getTimeDistribution(activities), sequential.getTimeDistribution(activities));
+        assertSame(parallel.getWorkoutHeatmapData(activities), sequential.getWorkoutHeatmapData(activities));
+        assertSame(parallel.getWorkoutHeatmapSummary(activities, today, null),
+                sequential.getWorkoutHeatmapSummary(activities, today, null));
+        assertSame(parallel.getRunStatistics(activities), sequential.getRunStatistics(activities));
+        assertSame(parallel.getRunDistribution(activities), sequential.getRunDistribution(activities));
+        assertSame(parallel.getRunningHeatmap(activities), sequential.getRunningHeatmap(activities));
+        for (String period : List.of("daily", "weekly", "monthly")) {
+            assertSame(parallel.getMileageTrend(activities, period), sequential.getMileageTrend(activities, period));
+            assertSame(parallel.getPaceTrend(activities, period), sequential.getPaceTrend(activities, period));
+        }
+    }
+
+    @Test
+    void parallelAggregationOfEmptyHistory() {
+        assertSame(parallel.getRunStatistics(List.of()), sequential.getRunStatistics(List.of()));
+        assertSame(parallel.getRunDistribution(List.of()), sequential.getRunDistribution(List.of()));
+    }
+
+    @Test
+    void runDistributionDefaultsKeepOneMileBucketsAndOverflowCountsLongRuns() {
+        List<StravaActivity> activities = activities(2000);
+
+        List<RunDistributionDto> defaults = sequential.getRunDistribution(activities);
+        List<RunDistributionDto> withOverflow = sequential.getDistribution(activities,
+                ActivityHistogram.Spec.of("distance", "mi", 1, 10, true, null));
+        long runs = activities.stream().filter(ActivityAggregate::isRun).count();
+
+        assertThat(defaults).extracting(RunDistributionDto::getDistanceRange)
+                .containsExactly("0-1", "1-2", "2-3", "3-4", "4-5", "5-6", "6-7", "7-8", "8-9", "9-10");
+        assertThat(withOverflow).last().extracting(RunDistributionDto::getDistanceRange).isEqualTo("10+");
+        assertThat(withOverflow.stream().mapToLong(RunDistributionDto::getCount).sum()).isEqualTo(runs);
+        assertThat(sequential.getDistribution(activities, ActivityHistogram.Spec.of("pace", "min/km", 0.5, 4, false, "all")))
+                .extracting(RunDistributionDto::getDistanceRange)
+                .containsExactly("0-0.5", "0.5-1", "1-1.5", "1.5-2");
+    }
+
+    @Test
+    void queryBySportMatchesActivityCountsAndSummary() {
+        List<StravaActivity> activities = activities(1000);
+
+        List<QueryRowDto> rows = sequential.query(activities, StatsQuery.parse("sport", "count,sum:moving_time", null, 0));
+
+        assertThat(rows).extracting(row -> row.getGroup().get("sport"))
+                .containsExactlyInAnyOrder("Run", "TrailRun", "Ride", "Swim", "WeightTraining");
+        for (ActivityCountDto count : sequential.getActivityCountDistribution(activities)) {
+            QueryRowDto row = rows.stream().filter(r -> r.getGroup().get("sport").equals(count.getActivityType())).findFirst().orElseThrow();
+            assertThat(row.getValues().get("count")).isEqualTo((double) count.getCount());
+        }
+        assertThat(rows.stream().mapToDouble(r -> r.getValues().get("sum:moving_time")).sum())
+                .isEqualTo(sequential.getSummaryStats(activities).getTotalMovingTimeSeconds());
+    }
+
+    @Test
+    void compactHeatmapsMatchPerDayHeatmaps() {
+        List<StravaActivity> activities = activities(3000);
+
+        assertCompactMatches(sequential.getWorkoutHeatmapCompact(activities, null, null),
+                sequential.getWorkoutHeatmapData(activities));
+        assertCompactMatches(sequential.getRunningHeatmapCompact(activities, null, null),
+                sequential.getRunningHeatmap(activities));
+
+        CompactHeatmapDto empty = sequential.getRunningHeatmapCompact(List.of(), null, null);
+        assertThat(empty.getDays()).isZero();
+        assertThat(empty.getStartDate()).isNull();
+    }
+
+    @Test
+    void compactHeatmapsRejectRangesLongerThanTheCap() {
+        List<StravaActivity> activities = activities(10);
+        LocalDate before = LocalDate.of(2024, 12, 31);
+
+        assertThat(sequential.getWorkoutHeatmapCompact(activities,
+                before.minusDays(CompactHeatmap.MAX_REQUESTED_DAYS - 1), before).getDays())
+                .isEqualTo(CompactHeatmap.MAX_REQUESTED_DAYS);
+        assertThatThrownBy(() -> sequential.getWorkoutHeatmapCompact(activities, LocalDate.of(1, 1, 1), before))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sequential.getWorkoutHeatmapCompact(activities, null, LocalDate.of(9999, 12, 31)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void overLongCompactHeatmapRangesAreRejectedBeforeFetching() {
+        LocalDate today = LocalDate.of(2024, 12, 31);
+
+        CompactHeatmap.checkRequestedRange(null, null, today);
+        CompactHeatmap.checkRequestedRange(today.minusDays(CompactHeatmap.MAX_REQUESTED_DAYS - 1), null, today);
+        CompactHeatmap.checkRequestedRange(null, today.minusYears(50), today); // earliest activity not known yet
+        assertThatThrownBy(() -> CompactHeatmap.checkRequestedRange(LocalDate.of(1, 1, 1), null, today))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompactHeatmap.checkRequestedRange(null, LocalDate.of(9999, 12, 31), today))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void periodComparisonMatchesSeparateRequests() {
+        List<StravaActivity> activities = activities(3000);
+        List<PeriodComparisonService.DateRange> ranges = PeriodComparisonService.parseRanges(
+                List.of("2024-05-01..2024-05-31", "2024-04-01..2024-04-30", "2023-01-01..2023-12-31"));
+
+        List<PeriodStatsDto> periods = new PeriodComparisonService(sequential).compare(activities, ranges);
+
+        for (int i = 0; i < ranges.size(); i++) {
+            PeriodComparisonService.DateRange range = ranges.get(i);
+            List<StravaActivity> inRange = activities.stream()
+                    .filter(a -> !a.getStartDateLocal().toLocalDate().isBefore(range.after())
+                            && !a.getStartDateLocal().toLocalDate().isAfter(range.before()))
+                    .toList();
+            PeriodStatsDto period = periods.get(i);
+            assertSame(period.getSummary(), sequential.getSummaryStats(inRange));
+            assertSame(period.getRunStatistics(), sequential.getRunStatistics(inRange));
+            assertSame(period.getStreaks(), sequential.getWorkoutHeatmapSummary(inRange, range.before(), range.after()));
+        }
+        assertThat(periods.get(0).getDeltas()).isEmpty();
+        assertThat(periods.get(1).getDeltas().get("activities"))
+                .isEqualTo(periods.get(1).getMetrics().get("activities") - periods.get(0).getMetrics().get("activities"));
+    }
+
+    @Test
+    void punchCardIsMergeableAndMatchesActivityCounts() {
+        List<StravaActivity> activities = activities(6000);
+
+        PunchCardDto all = sequential.getPunchCard(activities, "all");
+        assertThat(all.getTotalActivities()).isEqualTo(activities.size());
+        assertSame(parallel.getPunchCard(activities, "all"), all);
+
+        PunchCardDto runs = sequential.getPunchCard(activities, "run");
+        long runCount = activities.stream().filter(a -> "Run".equals(a.getSportType())).count();
+        assertThat(runs.getTotalActivities()).isEqualTo((int) runCount);
+
+        // Halves merged, as periods or athletes would be, equal one pass over everything
+        PunchCard merged = PunchCard.of(activities.subList(0, 2500), null)
+                .merge(PunchCard.of(activities.subList(2500, activities.size()), null));
+        assertSame(merged.toDto(), all);
+
+        StravaActivity first = activities.get(0);
+        int day = first.getStartDateLocal().getDayOfWeek().getValue() - 1;
+        assertThat(all.getCounts()[day][first.getStartDateLocal().getHour()]).isPositive();
+    }
+
+    private static void assertCompactMatches(CompactHeatmapDto compact, List<HeatmapDataDto> perDay) {
+        assertThat(compact.getStartDate()).isEqualTo(perDay.get(0).getDate());
+        assertThat(compact.getStartDate().plusDays(compact.getDays() - 1)).isEqualTo(perDay.get(perDay.size() - 1).getDate());
+        Map<LocalDate, HeatmapDataDto> byDate = new HashMap<>();
+        perDay.forEach(day -> byDate.put(day.getDate(), day));
+        for (int i = 0; i < compact.getDays(); i++) {
+            HeatmapDataDto day = byDate.get(compact.getStartDate().plusDays(i));
+            double value = day != null ? day.getValue() : 0;
+            assertThat(compact.getValues()[i]).isEqualTo(Math.round(value * compact.getValueScale()));
+            assertThat(CompactHeatmap.level(compact, i)).isEqualTo(day != null ? day.getIntensity() : 0);
+        }
+    }
+
+    private static void assertSame(Object actual, Object expected) {
+        assertThat(actual).usingRecursiveComparison(CLOSE_DOUBLES).isEqualTo(expected);
+    }
+
+    private static List<StravaActivity> activities(int count) {
+        Random random = new Random(42);
+        List<StravaActivity> activities = new ArrayList<>(count);
+        ZonedDateTime start = ZonedDateTime.of(2024, 6, 30, 7, 0, 0, 0, ZoneOffset.UTC);
+        for (int i = 0; i < count; i++) {
+            String sportType = SPORT_TYPES[random.nextInt(SPORT_TYPES.length)];
+            StravaActivity activity = new StravaActivity();
+            activity.setId((long) i);
+            activity.setSportType(sportType);
+            activity.setType(sportType.equals("TrailRun") ? "Run" : sportType);
+            activity.setDistance(500 + random.nextDouble() * 20000);
+            activity.setMovingTime(600 + random.nextInt(7200));
+            activity.setTotalElevationGain(random.nextDouble() * 300);
+            activity.setStartDateLocal(start);
+            activities.add(activity);
+            start = start.minusHours(6 + random.nextInt(30));
+        }
+        return activities;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.strava.service;
+
+import com.example.strava.config.TeamProperties;
+import com.example.strava.model.ActivityFetchResult;
+import com.example.strava.model.LeaderboardEntryDto;
+import com.example.strava.model.StravaActivity;
+import com.example.strava.model.TeamStatsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TeamStatsServiceTest {
+
+    private static final LocalDate AFTER = LocalDate.of(2024, 6, 1);
+    private static final LocalDate BEFORE = LocalDate.of(2024, 6, 30);
+
+    private TeamStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        StravaApiService stravaApiService = mock(StravaApiService.class);
+        // 1 runs far and slowly, 2 runs less but faster, 3 never logged in and 4 only rides
+        stub(stravaApiService, "1", activity("Run", 16_000, 5400), activity("Run", 10_000, 3300));
+        stub(stravaApiService, "2", activity("Run", 5000, 1200));
+        when(stravaApiService.getAllActivities(eq("3"), any(), any()))
+                .thenThrow(new IllegalStateException("No authorized client found for: 3"));
+        stub(stravaApiService, "4", activity("Ride", 40_000, 4800));
+
+        TeamProperties teamProperties = new TeamProperties();
+        teamProperties.setMembers(Map.of("tuesday-runners", List.of("1", "2", "3", "4")));
+        service = new TeamStatsService(teamProperties,
+                new AthleteAggregateCache(stravaApiService, Duration.ofMinutes(5), 100),
+                new StravaStatsService(StravaStatsService.DEFAULT_PARALLEL_THRESHOLD,
+                        StravaStatsService.DEFAULT_PARALLEL_CHUNK_SIZE));
+    }
+
+    @Test
+    void nonMembersAreDenied() {
+        assertThatThrownBy(() -> service.getTeamStats("tuesday-runners", "9", AFTER, BEFORE, "weekly"))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> service.getLeaderboard("tuesday-runners", "9", AFTER, BEFORE, "total-miles"))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void unknownTeamsAreRejected() {
+        assertThatThrownBy(() -> service.getTeamStats("thursday-riders", "1", AFTER, BEFORE, "weekly"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("thursday-riders");
+    }
+
+    @Test
+    void unavailableMembersAreSkipped() {
+        TeamStatsDto stats = service.getTeamStats("tuesday-runners", "1", AFTER, BEFORE, "weekly");
+
+        assertThat(stats.getMemberCount()).isEqualTo(4);
+        assertThat(stats.getIncludedMembers()).isEqualTo(3);
+        assertThat(stats.getUnavailableMembers()).containsExactly("3");
+        assertThat(stats.getRunStatistics().getTotalRuns()).isEqualTo(3);
+        assertThat(stats.isPartial()).isFalse();
+        assertThat(stats.isStale()).isFalse();
+    }
+
+    @Test
+    void totalsRankDescending() {
+        assertThat(service.getLeaderboard("tuesday-runners", "2", AFTER, BEFORE, "total-miles").entries())
+                .extracting(LeaderboardEntryDto::getRank, LeaderboardEntryDto::getAthleteId)
+                .containsExactly(tuple(1, "1"), tuple(2, "2"), tuple(3, "4"));
+    }
+
+    @Test
+    void pacesRankAscendingAndLeaveOffAthletesWithoutRuns() {
+        assertThat(service.getLeaderboard("tuesday-runners", "2", AFTER, BEFORE, "average-pace").entries())
+                .extracting(LeaderboardEntryDto::getRank, LeaderboardEntryDto::getAthleteId)
+                .containsExactly(tuple(1, "2"), tuple(2, "1"));
+        assertThat(service.getLeaderboard("tuesday-runners", "2", AFTER, BEFORE, "fastest-10k").entries())
+                .extracting(LeaderboardEntryDto::getAthleteId)
+                .containsExactly("1");
+    }
+
+    private static void stub(StravaApiService stravaApiService, String athleteId, StravaActivity... activities) {
+        when(stravaApiService.getAllActivities(eq(athleteId), any(), any()))
+                .thenReturn(new ActivityFetchResult(List.of(activities), false, 1, Instant.now(), false));
+    }
+
+    private static StravaActivity activity(String type, double meters, int seconds) {
+        StravaActivity activity = new StravaActivity();
+        activity.setType(type);
+        activity.setSportType(type);
+        activity.setDistance(meters);
+        activity.setMovingTime(seconds);
+        activity.setTotalElevationGain(50.0);
+        activity.setStartDateLocal(AFTER.plusDays(3).atTime(7, 0).atZone(ZoneOffset.UTC));
+        return activity;
+    }
+}
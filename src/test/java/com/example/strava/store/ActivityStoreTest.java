@@ -0,0 +1,106 @@
+package com.example.strava.store;
+
+import com.example.strava.model.StravaActivity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void codecRoundTripsEveryField() {
+        ActivitySnapshot snapshot = snapshot(250);
+
+        byte[] encoded = ActivitySnapshotCodec.encode(snapshot);
+        ActivitySnapshot decoded = ActivitySnapshotCodec.decode(encoded);
+
+        assertThat(decoded.getFetchedAt()).isEqualTo(snapshot.getFetchedAt());
+        assertThat(decoded.getActivities()).isEqualTo(snapshot.getActivities());
+        assertThat(decoded.getCoverage()).isEqualTo(snapshot.getCoverage());
+        assertThat(encoded.length).isLessThan(250 * 100);
+    }
+
+    @Test
+    void inMemoryStore() {
+        assertRoundTrip(new InMemoryActivityStore(10));
+    }
+
+    @Test
+    void fileStore() {
+        assertRoundTrip(new FileActivityStore(tempDir.resolve("store")));
+    }
+
+    @Test
+    void redisStoreAgainstStandIn() throws Exception {
+        try (RedisStandIn redis = new RedisStandIn()) {
+            LettuceConnectionFactory connectionFactory =
+                    new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", redis.port()));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            try {
+                assertRoundTrip(new RedisActivityStore(connectionFactory, "test:"));
+            } finally {
+                connectionFactory.destroy();
+            }
+        }
+    }
+
+    private void assertRoundTrip(ActivityStore store) {
+        ActivitySnapshot snapshot = snapshot(20);
+
+        assertThat(store.get("athlete-1")).isEmpty();
+        store.put("athlete-1", snapshot, Duration.ofMinutes(5));
+        assertThat(store.get("athlete-1")).hasValueSatisfying(stored ->
+                assertThat(stored.getActivities()).isEqualTo(snapshot.getActivities()));
+
+        store.remove("athlete-1");
+        assertThat(store.get("athlete-1")).isEmpty();
+
+        store.put("athlete-2", snapshot, Duration.ofMillis(-1));
+        assertThat(store.get("athlete-2")).isEmpty();
+
+        store.put("athlete-3", snapshot, ActivityStore.RETAIN_INDEFINITELY);
+        assertThat(store.get("athlete-3")).isPresent();
+    }
+
+    private static ActivitySnapshot snapshot(int count) {
+        List<StravaActivity> activities = new ArrayList<>();
+        ZonedDateTime start = ZonedDateTime.of(2024, 6, 1, 7, 30, 0, 0, ZoneOffset.UTC);
+        for (int i = 0; i < count; i++) {
+            StravaActivity activity = new StravaActivity();
+            activity.setId(10_000_000_000L + i);
+            activity.setName(i % 5 == 0 ? null : "Morning Run " + i);
+            activity.setSportType(i % 3 == 0 ? "Ride" : "Run");
+            activity.setType(i % 3 == 0 ? "Ride" : "Run");
+            activity.setDistance(i % 7 == 0 ? null : 5000.5 + i);
+            activity.setMovingTime(1500 + i);
+            activity.setElapsedTime(i % 4 == 0 ? null : 1600 + i);
+            activity.setTotalElevationGain(12.3 * i);
+            activity.setStartDate(start.minusDays(i));
+            activity.setStartDateLocal(start.minusDays(i).withZoneSameInstant(ZoneId.of("America/Los_Angeles")));
+            activity.setAverageSpeed(3.1);
+            activity.setMaxSpeed(i % 2 == 0 ? null : 4.7);
+            activities.add(activity);
+        }
+        Instant fetchedAt = Instant.parse("2024-06-02T10:15:30.123Z");
+        return new ActivitySnapshot(activities, fetchedAt, List.of(
+                new CoveredRange(LocalDate.MIN, LocalDate.of(2023, 12, 31), fetchedAt.minusSeconds(600), true),
+                new CoveredRange(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 6, 2), fetchedAt)));
+    }
+}
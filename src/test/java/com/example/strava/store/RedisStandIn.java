@@ -0,0 +1,161 @@
+package com.example.strava.store;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Minimal Redis-protocol (RESP2) server for tests: GET, SET [EX|PX], DEL, EXISTS, PING and the
+ * connection handshake commands. Enough for Spring Data Redis / Lettuce without a real Redis; shared by the
+ * store and security tests.
+ */
+public class RedisStandIn implements AutoCloseable {
+
+    private record Value(byte[] bytes, long expiresAtMillis) {
+        boolean expired() {
+            return expiresAtMillis > 0 && expiresAtMillis < System.currentTimeMillis();
+        }
+    }
+
+    private final Map<String, Value> data = new ConcurrentHashMap<>();
+    private final ServerSocket serverSocket;
+
+    public RedisStandIn() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().start(this::acceptLoop);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket; InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = socket.getOutputStream()) {
+            List<byte[]> command;
+            while ((command = readCommand(in)) != null) {
+                out.write(execute(command));
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    private byte[] execute(List<byte[]> command) {
+        String name = new String(command.get(0), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+        return switch (name) {
+            case "PING" -> simple("PONG");
+            case "CLIENT", "SELECT", "AUTH" -> simple("OK");
+            case "GET" -> {
+                Value value = live(key(command, 1));
+                yield value == null ? "$-1\r\n".getBytes(StandardCharsets.UTF_8) : bulk(value.bytes());
+            }
+            case "SET" -> {
+                long expiresAt = 0;
+                for (int i = 3; i + 1 < command.size(); i += 2) {
+                    String option = new String(command.get(i), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+                    long amount = Long.parseLong(new String(command.get(i + 1), StandardCharsets.UTF_8));
+                    if (option.equals("EX")) expiresAt = System.currentTimeMillis() + amount * 1000;
+                    if (option.equals("PX")) expiresAt = System.currentTimeMillis() + amount;
+                }
+                data.put(key(command, 1), new Value(command.get(2), expiresAt));
+                yield simple("OK");
+            }
+            case "DEL", "EXISTS" -> {
+                long count = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    String key = key(command, i);
+                    if (live(key) != null) {
+                        count++;
+                        if (name.equals("DEL")) data.remove(key);
+                    }
+                }
+                yield (":" + count + "\r\n").getBytes(StandardCharsets.UTF_8);
+            }
+            default -> ("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.UTF_8);
+        };
+    }
+
+    private Value live(String key) {
+        Value value = data.get(key);
+        if (value != null && value.expired()) {
+            data.remove(key, value);
+            return null;
+        }
+        return value;
+    }
+
+    private static String key(List<byte[]> command, int index) {
+        return new String(command.get(index), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] simple(String text) {
+        return ("+" + text + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bulk(byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length + 16);
+        out.writeBytes(("$" + payload.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(payload);
+        out.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header == null) return null;
+        if (!header.startsWith("*")) {
+            throw new IOException("Expected RESP array, got: " + header);
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<byte[]> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String lengthLine = readLine(in);
+            int length = Integer.parseInt(lengthLine.substring(1));
+            parts.add(in.readNBytes(length));
+            in.readNBytes(2); // trailing CRLF
+        }
+        return parts;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\r') {
+                in.read(); // '\n'
+                return line.toString();
+            }
+            line.append((char) b);
+        }
+        return line.isEmpty() ? null : line.toString();
+    }
+}